@@ -0,0 +1,53 @@
+package com.trafficanalysis.benchmark;
+
+import com.trafficanalysis.TrafficAnalysisApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application against an in-memory H2 database (MySQL mode), so
+ * benchmarks run offline and always start from an empty schema.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    private static final List<String> PROPERTIES = List.of(
+            "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "spring.datasource.driver-class-name=org.h2.Driver",
+            "spring.datasource.username=sa",
+            "spring.datasource.password=",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "server.port=0",
+            // No detector file: benchmarks load their own data
+            "traffic.detections.file-path=target/benchmark/detections.json",
+            // Startup maintenance queries are written for MySQL, and the schema starts empty
+            "traffic.db.startup-maintenance=false",
+            "logging.level.root=WARN");
+
+    /**
+     * The properties are passed as command line arguments: default properties
+     * ({@code SpringApplicationBuilder.properties}) lose against
+     * application.properties, which points at MySQL. A repeated argument
+     * would become a list, so the caller's properties replace the defaults here.
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        Map<String, String> merged = new LinkedHashMap<>();
+        Stream.concat(PROPERTIES.stream(), Arrays.stream(properties)).forEach(property -> {
+            int separator = property.indexOf('=');
+            merged.put(property.substring(0, separator), property.substring(separator + 1));
+        });
+        String[] args = merged.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(TrafficAnalysisApplication.class).run(args);
+    }
+}
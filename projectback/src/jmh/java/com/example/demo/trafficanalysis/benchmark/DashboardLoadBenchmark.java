@@ -0,0 +1,108 @@
+package com.trafficanalysis.benchmark;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.service.RollupService;
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionRingBuffer;
+import com.trafficanalysis.store.DetectionStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the dashboard's fan-out over HTTP, with requests served by the
+ * Tomcat thread pool ({@code platform}) or by virtual threads ({@code virtual}).
+ * <p>
+ * Every JMH thread is a client cycling through the endpoints one dashboard
+ * load calls. {@code Throughput} reports requests/s and {@code SampleTime}
+ * the latency distribution (p99 included). Every 50th request also bumps the
+ * data version, as an ingest would, so cached results keep being recomputed.
+ * Responses other than 200 (503 when the database limiter times out) are
+ * returned rather than thrown, so they show up without stopping the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DashboardLoadBenchmark {
+
+    private static final List<String> DASHBOARD = List.of(
+            "/volume/total",
+            "/volume/by-lane",
+            "/patterns/hourly",
+            "/lanes/speed",
+            "/lanes/bottlenecks",
+            "/temporal/evolution?maxPoints=500",
+            "/temporal/speed?maxPoints=500",
+            "/vehicle-types/dominance",
+            "/structures/array",
+            "/structures/linked-list",
+            "/structures/double-linked-list",
+            "/structures/circular-double-linked-list",
+            "/structures/stack",
+            "/structures/queue",
+            "/analysis/summary");
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private DataVersion dataVersion;
+    private HttpClient client;
+    private List<URI> endpoints;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.threads.virtual.enabled=" + threads.equals("virtual"));
+        dataVersion = context.getBean(DataVersion.class);
+
+        DetectionGenerator generator = new DetectionGenerator(42L);
+        for (int loaded = 0; loaded < rows; loaded += 10_000) {
+            List<DetectionDto> chunk = generator.next(Math.min(10_000, rows - loaded));
+            int firstRow = context.getBean(DetectionStore.class).appendAll(chunk);
+            context.getBean(DetectionRingBuffer.class).append(firstRow, chunk.size());
+            context.getBean(DetectionAggregates.class).accept(chunk);
+            context.getBean(RollupService.class).record(chunk);
+        }
+        dataVersion.increment();
+
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/detections";
+        endpoints = DASHBOARD.stream().map(path -> URI.create(base + path)).toList();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        int n = sequence.getAndIncrement();
+        if (n % 50 == 0) {
+            dataVersion.increment();
+        }
+        HttpRequest request = HttpRequest.newBuilder(endpoints.get(Math.floorMod(n, endpoints.size()))).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,110 @@
+package com.trafficanalysis.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.store.DetectionStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic source of detections shaped like the detector's output:
+ * three lanes, car/bus/truck counts, {@code timestamp_ms} restarting on every
+ * detector run, and the empty maps the detector writes when nothing was seen
+ * (no vehicles, no lane assignment, no speed estimate).
+ */
+public class DetectionGenerator {
+
+    private static final String[] LANES = {"lane_1", "lane_2", "lane_3"};
+    private static final String[] CLASSES = {"car", "bus", "truck"};
+    // Roughly one detector run per 4-5 hours of detections
+    private static final int RUN_LENGTH = 8_000;
+
+    private final Random random;
+    private LocalDateTime date = LocalDateTime.of(2025, 5, 8, 21, 7, 12);
+    private long timestampMs;
+    private int inRun;
+
+    public DetectionGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public DetectionDto next() {
+        if (++inRun > RUN_LENGTH) {
+            inRun = 1;
+            timestampMs = 0;
+            date = date.plusHours(1 + random.nextInt(12));
+        }
+        long step = 1_500 + random.nextInt(1_000);
+        timestampMs += step;
+        date = date.plusNanos(step * 1_000_000L);
+
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        Map<String, Map<String, Integer>> byLane = new LinkedHashMap<>();
+        Map<String, Double> speeds = new LinkedHashMap<>();
+
+        int kind = random.nextInt(10);
+        if (kind > 0) {
+            for (String vehicleClass : CLASSES) {
+                int count = vehicleClass.equals("car") ? 5 + random.nextInt(20) : random.nextInt(3);
+                if (count > 0) {
+                    totals.put(vehicleClass, count);
+                }
+            }
+        }
+        // Lanes are only assigned once the lane lines have been calibrated
+        if (kind > 3) {
+            totals.forEach((vehicleClass, count) -> {
+                for (int i = 0; i < count; i++) {
+                    String lane = LANES[random.nextInt(LANES.length)];
+                    byLane.computeIfAbsent(lane, l -> new LinkedHashMap<>()).merge(vehicleClass, 1, Integer::sum);
+                }
+            });
+            if (random.nextBoolean()) {
+                for (String lane : byLane.keySet()) {
+                    speeds.put(lane, 20.0 + random.nextDouble() * 60.0);
+                }
+            }
+        }
+
+        return DetectionDto.builder()
+                .timestamp_ms(timestampMs)
+                .date(DetectionStore.DATE_FORMAT.format(date))
+                .objects_total(totals)
+                .objects_by_lane(byLane)
+                .avg_speed_by_lane(speeds)
+                .build();
+    }
+
+    public List<DetectionDto> next(int count) {
+        List<DetectionDto> detections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            detections.add(next());
+        }
+        return detections;
+    }
+
+    /**
+     * The next {@code count} detections serialized as a {@code detections.json} document.
+     */
+    public byte[] nextJson(int count, ObjectMapper objectMapper) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("detections");
+            for (int i = 0; i < count; i++) {
+                objectMapper.writeValue(generator, next());
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+}
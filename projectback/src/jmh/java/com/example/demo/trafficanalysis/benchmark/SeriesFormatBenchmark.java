@@ -0,0 +1,124 @@
+package com.trafficanalysis.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.trafficanalysis.config.SeriesBinaryHttpMessageConverter;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.SpeedEvolutionDto;
+import com.trafficanalysis.dto.TrafficEvolutionDto;
+import com.trafficanalysis.store.DetectionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Server CPU per response for each series format the API can negotiate:
+ * JSON (with and without gzip, as {@code server.compression} applies it),
+ * CBOR, Smile and the delta-encoded columnar binary format. The score is the
+ * time to encode both evolution series; the bytes each format puts on the
+ * wire are printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeriesFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    private int points;
+
+    @Param({"json", "json-gzip", "cbor", "smile", "binary"})
+    private String format;
+
+    private TrafficEvolutionDto traffic;
+    private SpeedEvolutionDto speed;
+    private ObjectMapper mapper;
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<DetectionDto> detections = new DetectionGenerator(42L).next(points);
+        List<String> timestamps = new ArrayList<>(points);
+        long[] epochSeconds = new long[points];
+        int[] cars = new int[points];
+        int[] buses = new int[points];
+        int[] trucks = new int[points];
+        Map<String, double[]> lanes = new TreeMap<>();
+        for (int i = 0; i < points; i++) {
+            DetectionDto detection = detections.get(i);
+            timestamps.add(detection.getDate());
+            epochSeconds[i] = LocalDateTime.parse(detection.getDate(), DetectionStore.DATE_FORMAT).toEpochSecond(ZoneOffset.UTC);
+            cars[i] = detection.getObjects_total().getOrDefault("car", 0);
+            buses[i] = detection.getObjects_total().getOrDefault("bus", 0);
+            trucks[i] = detection.getObjects_total().getOrDefault("truck", 0);
+            for (String lane : List.of("lane_1", "lane_2", "lane_3")) {
+                lanes.computeIfAbsent(lane, l -> new double[points])[i] =
+                        detection.getAvg_speed_by_lane().getOrDefault(lane, Double.NaN);
+            }
+        }
+        traffic = TrafficEvolutionDto.builder().timestamps(timestamps).epochSeconds(epochSeconds)
+                .car(cars).bus(buses).truck(trucks).build();
+        speed = SpeedEvolutionDto.builder().timestamps(timestamps).epochSeconds(epochSeconds).lanes(lanes).build();
+
+        mapper = switch (format) {
+            case "cbor" -> new ObjectMapper(new CBORFactory());
+            case "smile" -> new ObjectMapper(new SmileFactory());
+            default -> new ObjectMapper();
+        };
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s, %d points: %d bytes per traffic + speed response pair%n", format, points, bytes);
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream out = format.equals("json-gzip") ? new GZIPOutputStream(buffer) : buffer;
+        write(traffic, out);
+        write(speed, out);
+        out.close();
+        bytes = buffer.size();
+        return bytes;
+    }
+
+    private void write(Object series, OutputStream out) throws IOException {
+        if (format.equals("binary")) {
+            SeriesBinaryHttpMessageConverter.encode(series, out);
+        } else {
+            mapper.writeValue(new NonClosingStream(out), series);
+        }
+    }
+
+    // ObjectMapper closes the target stream; keep it open for the second series
+    private static final class NonClosingStream extends FilterOutputStream {
+
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
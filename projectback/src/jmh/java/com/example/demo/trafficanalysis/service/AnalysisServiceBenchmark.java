@@ -0,0 +1,133 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.benchmark.BenchmarkApplication;
+import com.trafficanalysis.benchmark.DetectionGenerator;
+import com.trafficanalysis.dto.*;
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis endpoints over 10k, 1M and 10M synthetic detections.
+ * <p>
+ * With {@code cached=false} the data version is bumped before every call, so
+ * each call recomputes its result (and re-reads rollups from H2) as it would
+ * right after an ingest; with {@code cached=true} repeated calls are served
+ * from {@link AnalysisCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class AnalysisServiceBenchmark {
+
+    private static final int LOAD_CHUNK = 10_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private AnalysisService analysisService;
+    private DataVersion dataVersion;
+    private final EvolutionQuery fullSeries = new EvolutionQuery();
+    private final EvolutionQuery downsampled = EvolutionQuery.builder().maxPoints(1_000).build();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        analysisService = context.getBean(AnalysisService.class);
+        dataVersion = context.getBean(DataVersion.class);
+        DetectionStore store = context.getBean(DetectionStore.class);
+        DetectionAggregates aggregates = context.getBean(DetectionAggregates.class);
+        RollupService rollupService = context.getBean(RollupService.class);
+
+        DetectionGenerator generator = new DetectionGenerator(42L);
+        for (int loaded = 0; loaded < rows; loaded += LOAD_CHUNK) {
+            List<DetectionDto> chunk = generator.next(Math.min(LOAD_CHUNK, rows - loaded));
+            store.appendAll(chunk);
+            aggregates.accept(chunk);
+            rollupService.record(chunk);
+        }
+        dataVersion.increment();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TotalVolumeDto totalVolume() {
+        invalidate();
+        return analysisService.getTotalVolume();
+    }
+
+    @Benchmark
+    public TotalVolumeDto totalVolumeRange() {
+        // Ad-hoc ranges are never cached: always a parallel scan
+        return analysisService.getTotalVolume(0L, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> volumeByLane() {
+        invalidate();
+        return analysisService.getVolumeByLane();
+    }
+
+    @Benchmark
+    public Map<String, Double> avgSpeedByLane() {
+        invalidate();
+        return analysisService.getAvgSpeedByLane();
+    }
+
+    @Benchmark
+    public Map<String, Long> hourlyPatterns() {
+        invalidate();
+        return analysisService.getHourlyPatterns();
+    }
+
+    @Benchmark
+    public List<BottleneckDto> bottlenecks() {
+        invalidate();
+        return analysisService.getBottlenecks();
+    }
+
+    @Benchmark
+    public TrafficEvolutionDto trafficEvolution() {
+        invalidate();
+        return analysisService.getTrafficEvolution(fullSeries);
+    }
+
+    @Benchmark
+    public TrafficEvolutionDto trafficEvolutionDownsampled() {
+        return analysisService.getTrafficEvolution(downsampled);
+    }
+
+    @Benchmark
+    public SpeedEvolutionDto speedEvolution() {
+        invalidate();
+        return analysisService.getSpeedEvolution(fullSeries);
+    }
+
+    @Benchmark
+    public SpeedEvolutionDto speedEvolutionDownsampled() {
+        return analysisService.getSpeedEvolution(downsampled);
+    }
+
+    private void invalidate() {
+        if (!cached) {
+            dataVersion.increment();
+        }
+    }
+}
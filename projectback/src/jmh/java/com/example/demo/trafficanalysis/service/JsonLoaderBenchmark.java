@@ -0,0 +1,69 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.benchmark.DetectionGenerator;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.Detection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ingestion hot paths that do not touch the database: streaming a
+ * {@code detections.json} document into DTOs and mapping between DTOs and
+ * entities. Scores are per call, i.e. per {@code rows} detections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class JsonLoaderBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DetectionMapper detectionMapper = new DetectionMapper();
+    private byte[] json;
+    private List<DetectionDto> dtos;
+    private List<Detection> entities;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = new DetectionGenerator(42L).nextJson(rows, objectMapper);
+        dtos = new DetectionGenerator(42L).next(rows);
+        entities = dtos.stream().map(detectionMapper::toEntity).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void parseDetections(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            JsonLoaderService.moveToDetectionsArray(parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                blackhole.consume(objectMapper.readValue(parser, DetectionDto.class));
+            }
+        }
+    }
+
+    @Benchmark
+    public void toEntity(Blackhole blackhole) {
+        for (DetectionDto dto : dtos) {
+            blackhole.consume(detectionMapper.toEntity(dto));
+        }
+    }
+
+    @Benchmark
+    public void toDto(Blackhole blackhole) {
+        for (Detection entity : entities) {
+            blackhole.consume(detectionMapper.toDto(entity));
+        }
+    }
+}
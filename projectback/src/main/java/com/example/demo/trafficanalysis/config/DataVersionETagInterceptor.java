@@ -0,0 +1,47 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.store.DataVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GET for the analysis endpoints. Every response is derived from
+ * the ingested data, so the {@link DataVersion} (plus the process start, as
+ * the version restarts with the application) is a strong ETag for all of
+ * them. A matching If-None-Match is answered with 304 before the controller
+ * runs, so nothing is computed or serialized between ingests.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersionETagInterceptor implements HandlerInterceptor {
+
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+    private final DataVersion dataVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        // Read before the handler runs: if an ingest lands meanwhile, the
+        // response carries the older tag and the next poll refreshes it
+        String etag = "\"" + INSTANCE + "-" + dataVersion.current() + representation(request) + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    // JSON, CBOR, Smile and binary bodies of the same data need distinct strong tags
+    private static String representation(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept == null ? "" : "-" + Integer.toHexString(accept.hashCode());
+    }
+}
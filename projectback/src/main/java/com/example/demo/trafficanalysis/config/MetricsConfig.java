@@ -0,0 +1,36 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionStore;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond what Actuator records on its own. HTTP latency per endpoint
+ * comes from {@code http.server.requests}; {@link TimedAspect} enables
+ * {@code @Timed} on services.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder detectionStoreMetrics(DetectionStore detectionStore, DataVersion dataVersion) {
+        return registry -> {
+            Gauge.builder("traffic.store.rows", detectionStore, DetectionStore::size)
+                    .description("Detections held in memory")
+                    .register(registry);
+            Gauge.builder("traffic.data.version", dataVersion, DataVersion::current)
+                    .description("Number of ingested batches since startup")
+                    .register(registry);
+        };
+    }
+}
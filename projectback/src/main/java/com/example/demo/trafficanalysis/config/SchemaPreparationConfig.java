@@ -0,0 +1,60 @@
+package com.trafficanalysis.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Database cleanup that has to run before Hibernate's schema update
+ * ({@code ddl-auto=update}). The old loader saved the whole file again on
+ * every change, and those copies must be gone before the unique constraint on
+ * (date, timestamp_ms) can be added to an existing database.
+ * <p>
+ * The statements are MySQL-only; {@code traffic.db.startup-maintenance=false}
+ * leaves this configuration out, e.g. on a fresh in-memory database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "traffic.db.startup-maintenance", matchIfMissing = true)
+@Slf4j
+public class SchemaPreparationConfig {
+
+    // The oldest row of each (date, timestamp_ms) is kept
+    static final String DELETE_DUPLICATE_LANE_METRICS = "DELETE m FROM detection_lane_metric m "
+            + "JOIN detection d ON m.detection_id = d.id "
+            + "JOIN detection o ON o.date = d.date AND o.timestamp_ms = d.timestamp_ms AND o.id < d.id";
+    static final String DELETE_DUPLICATE_DETECTIONS = "DELETE d FROM detection d "
+            + "JOIN detection o ON o.date = d.date AND o.timestamp_ms = d.timestamp_ms AND o.id < d.id";
+
+    // Makes the entity manager factory, and so the schema update, wait for the cleanup
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor detectionDeduplicationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor("detectionDeduplication");
+    }
+
+    @Bean
+    public InitializingBean detectionDeduplication(JdbcTemplate jdbcTemplate) {
+        return () -> {
+            // Databases created before the typed columns have no lane metric table
+            execute(jdbcTemplate, DELETE_DUPLICATE_LANE_METRICS);
+            int removed = execute(jdbcTemplate, DELETE_DUPLICATE_DETECTIONS);
+            if (removed > 0) {
+                log.info("Removed {} duplicate detections", removed);
+            }
+        };
+    }
+
+    private static int execute(JdbcTemplate jdbcTemplate, String sql) {
+        try {
+            return jdbcTemplate.update(sql);
+        } catch (DataAccessException e) {
+            // New database: the tables are created by the schema update
+            log.debug("Skipped duplicate cleanup: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
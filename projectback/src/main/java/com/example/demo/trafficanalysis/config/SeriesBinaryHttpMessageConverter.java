@@ -0,0 +1,157 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.dto.SpeedEvolutionDto;
+import com.trafficanalysis.dto.TrafficEvolutionDto;
+import com.trafficanalysis.store.DetectionStore;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact columnar encoding of the evolution series
+ * ({@value #MEDIA_TYPE_VALUE}), selected with the Accept header.
+ * <p>
+ * Layout (varints are unsigned LEB128, signed values zig-zag encoded):
+ * <pre>
+ * 'T' 'S' version(1) kind(1 = traffic, 2 = speed)
+ * varint points
+ * timestamp encoding: 1 = epoch seconds, first value then deltas (signed varints)
+ *                     0 = strings (used when a date could not be parsed)
+ * varint series, then per series: string name, values
+ *   traffic: counts as signed varint deltas from the previous point
+ *   speed:   float32 per point, NaN where the lane reported no speed
+ * string nextCursor (empty when there is no next page)
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8.
+ */
+public class SeriesBinaryHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-traffic-series";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int VERSION = 1;
+    private static final int KIND_TRAFFIC = 1;
+    private static final int KIND_SPEED = 2;
+
+    public SeriesBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TrafficEvolutionDto.class.isAssignableFrom(clazz) || SpeedEvolutionDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(MEDIA_TYPE_VALUE + " is a response-only format", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object series, HttpOutputMessage outputMessage) throws IOException {
+        encode(series, outputMessage.getBody());
+    }
+
+    /**
+     * Writes a {@link TrafficEvolutionDto} or {@link SpeedEvolutionDto} in this format.
+     */
+    public static void encode(Object series, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeByte('T');
+        out.writeByte('S');
+        out.writeByte(VERSION);
+        if (series instanceof TrafficEvolutionDto traffic) {
+            out.writeByte(KIND_TRAFFIC);
+            List<String> timestamps = traffic.getTimestamps();
+            writeTimestamps(out, timestamps, traffic.getEpochSeconds());
+            writeVarint(out, 3);
+            writeCounts(out, "car", traffic.getCar(), timestamps.size());
+            writeCounts(out, "bus", traffic.getBus(), timestamps.size());
+            writeCounts(out, "truck", traffic.getTruck(), timestamps.size());
+            writeString(out, traffic.getNextCursor());
+        } else if (series instanceof SpeedEvolutionDto speed) {
+            out.writeByte(KIND_SPEED);
+            List<String> timestamps = speed.getTimestamps();
+            writeTimestamps(out, timestamps, speed.getEpochSeconds());
+            Map<String, double[]> lanes = speed.getLanes() != null ? speed.getLanes() : Map.of();
+            writeVarint(out, lanes.size());
+            for (Map.Entry<String, double[]> lane : lanes.entrySet()) {
+                writeString(out, lane.getKey());
+                for (double value : lane.getValue()) {
+                    out.writeFloat((float) value);
+                }
+            }
+            writeString(out, speed.getNextCursor());
+        } else {
+            throw new IllegalArgumentException("Unsupported series: " + series.getClass());
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the epoch seconds the series carries; the date strings are only
+     * written when they are missing or one of the dates could not be parsed.
+     */
+    private static void writeTimestamps(DataOutputStream out, List<String> timestamps, long[] epochSeconds)
+            throws IOException {
+        writeVarint(out, timestamps.size());
+        if (epochSeconds == null || epochSeconds.length != timestamps.size()
+                || Arrays.stream(epochSeconds).anyMatch(seconds -> seconds == DetectionStore.UNKNOWN_DATE)) {
+            out.writeByte(0);
+            for (String timestamp : timestamps) {
+                writeString(out, timestamp);
+            }
+            return;
+        }
+        out.writeByte(1);
+        long previous = 0;
+        for (long value : epochSeconds) {
+            writeSignedVarint(out, value - previous);
+            previous = value;
+        }
+    }
+
+    private static void writeCounts(DataOutputStream out, String name, int[] counts, int points) throws IOException {
+        writeString(out, name);
+        long previous = 0;
+        for (int i = 0; i < points; i++) {
+            int value = counts != null ? counts[i] : 0;
+            writeSignedVarint(out, value - previous);
+            previous = value;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeSignedVarint(DataOutputStream out, long value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
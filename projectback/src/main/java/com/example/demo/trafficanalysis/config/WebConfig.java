@@ -1,15 +1,62 @@
 package com.trafficanalysis.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
     
+    private final DataVersionETagInterceptor dataVersionETagInterceptor;
+    private final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // The event stream and ingest endpoints are not snapshots of the data
+        registry.addInterceptor(dataVersionETagInterceptor)
+                .addPathPatterns("/api/detections/**")
+                .excludePathPatterns("/api/detections/stream", "/api/detections/batch");
+    }
+    
+    /**
+     * Binary formats, placed after the JSON converter so they are only used
+     * when the Accept header asks for them; a wildcard or missing Accept
+     * keeps getting JSON. The Jackson ones share the JSON settings and
+     * replace the MVC defaults, which use a plain mapper.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        int json = converters.size();
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                json = i + 1;
+                break;
+            }
+        }
+        converters.addAll(json, List.of(
+                new MappingJackson2CborHttpMessageConverter(jackson2ObjectMapperBuilder.factory(new CBORFactory()).build()),
+                new MappingJackson2SmileHttpMessageConverter(jackson2ObjectMapperBuilder.factory(new SmileFactory()).build()),
+                new SeriesBinaryHttpMessageConverter()));
+    }
+    
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -23,6 +70,7 @@ public class WebConfig implements WebMvcConfigurer {
         config.addAllowedMethod("PUT");
         config.addAllowedMethod("DELETE");
         config.addAllowedMethod("OPTIONS");
+        config.addExposedHeader(HttpHeaders.ETAG);
         
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
@@ -1,14 +1,33 @@
 package com.trafficanalysis.controller;
 
 import com.trafficanalysis.dto.*;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trafficanalysis.service.AnalysisService;
+import com.trafficanalysis.service.DetectionExportService;
+import com.trafficanalysis.service.DetectionIngestQueue;
+import com.trafficanalysis.service.DetectionStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/detections")
@@ -18,119 +37,226 @@ import java.util.Map;
 public class DetectionController {
     
     private final AnalysisService analysisService;
+    private final DetectionStreamService detectionStreamService;
+    private final DetectionIngestQueue detectionIngestQueue;
+    private final DetectionExportService detectionExportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/volume/total")
-    public ResponseEntity<TotalVolumeDto> getTotalVolume() {
-        log.info("API request: /volume/total");
-        return ResponseEntity.ok(analysisService.getTotalVolume());
+    public ResponseEntity<TotalVolumeDto> getTotalVolume(@RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to) {
+        log.debug("API request: /volume/total from={} to={}", from, to);
+        return ResponseEntity.ok(analysisService.getTotalVolume(from, to));
     }
 
     @GetMapping("/volume/by-lane")
     public ResponseEntity<Map<String, Map<String, Integer>>> getVolumeByLane() {
-        log.info("API request: /volume/by-lane");
+        log.debug("API request: /volume/by-lane");
         return ResponseEntity.ok(analysisService.getVolumeByLane());
     }
 
     @GetMapping("/patterns/hourly")
-    public ResponseEntity<Map<String, Integer>> getHourlyPatterns() {
-        log.info("API request: /patterns/hourly");
-        return ResponseEntity.ok(analysisService.getHourlyPatterns());
+    public ResponseEntity<Map<String, Long>> getHourlyPatterns(@RequestParam(required = false) Long from,
+                                                                  @RequestParam(required = false) Long to) {
+        log.debug("API request: /patterns/hourly from={} to={}", from, to);
+        return ResponseEntity.ok(analysisService.getHourlyPatterns(from, to));
     }
 
     @GetMapping("/lanes/speed")
-    public ResponseEntity<Map<String, Double>> getAvgSpeedByLane() {
-        log.info("API request: /lanes/speed");
-        return ResponseEntity.ok(analysisService.getAvgSpeedByLane());
+    public ResponseEntity<Map<String, Double>> getAvgSpeedByLane(@RequestParam(required = false) Long from,
+                                                                 @RequestParam(required = false) Long to) {
+        log.debug("API request: /lanes/speed from={} to={}", from, to);
+        return ResponseEntity.ok(analysisService.getAvgSpeedByLane(from, to));
+    }
+
+    @GetMapping("/lanes/speed/stats")
+    public ResponseEntity<Map<String, SpeedStatsDto>> getSpeedStatsByLane() {
+        log.debug("API request: /lanes/speed/stats");
+        return ResponseEntity.ok(analysisService.getSpeedStatsByLane());
     }
 
     @GetMapping("/lanes/bottlenecks")
     public ResponseEntity<List<BottleneckDto>> getBottlenecks() {
-        log.info("API request: /lanes/bottlenecks");
+        log.debug("API request: /lanes/bottlenecks");
         return ResponseEntity.ok(analysisService.getBottlenecks());
     }
 
     @GetMapping("/temporal/evolution")
-    public ResponseEntity<TrafficEvolutionDto> getTrafficEvolution() {
-        log.info("API request: /temporal/evolution");
-        return ResponseEntity.ok(analysisService.getTrafficEvolution());
+    public ResponseEntity<TrafficEvolutionDto> getTrafficEvolution(EvolutionQuery query) {
+        log.debug("API request: /temporal/evolution {}", query);
+        return ResponseEntity.ok(analysisService.getTrafficEvolution(query));
     }
 
     @GetMapping("/temporal/speed")
-    public ResponseEntity<SpeedEvolutionDto> getSpeedEvolution() {
-        log.info("API request: /temporal/speed");
-        return ResponseEntity.ok(analysisService.getSpeedEvolution());
+    public ResponseEntity<SpeedEvolutionDto> getSpeedEvolution(EvolutionQuery query) {
+        log.debug("API request: /temporal/speed {}", query);
+        return ResponseEntity.ok(analysisService.getSpeedEvolution(query));
+    }
+
+    /**
+     * Traffic evolution of the whole history (or [from, to]) streamed from the
+     * database as it is read, for exports too large to build in memory.
+     */
+    @GetMapping(path = "/export/evolution", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTrafficEvolution(@RequestParam(required = false) Long from,
+                                                                        @RequestParam(required = false) Long to) {
+        log.debug("API request: /export/evolution from={} to={}", from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"traffic-evolution.json\"")
+                .body(out -> detectionExportService.writeEvolution(from, to, out));
     }
 
     @GetMapping("/vehicle-types/dominance")
     public ResponseEntity<Map<String, Double>> getVehicleTypeDominance() {
-        log.info("API request: /vehicle-types/dominance");
+        log.debug("API request: /vehicle-types/dominance");
         return ResponseEntity.ok(analysisService.getVehicleTypeDominance());
     }
 
     @GetMapping("/structures/array")
     public ResponseEntity<List<Integer>> getArrayData() {
-        log.info("API request: /structures/array");
+        log.debug("API request: /structures/array");
         return ResponseEntity.ok(analysisService.getArrayData());
     }
 
     @GetMapping("/structures/linked-list")
-    public ResponseEntity<List<ListItemDto>> getLinkedListData() {
-        log.info("API request: /structures/linked-list");
-        return ResponseEntity.ok(analysisService.getLinkedListData());
+    public ResponseEntity<List<ListItemDto>> getLinkedListData(@RequestParam(defaultValue = "8") int n) {
+        log.debug("API request: /structures/linked-list n={}", n);
+        return ResponseEntity.ok(analysisService.getLinkedListData(n));
     }
 
     @GetMapping("/structures/double-linked-list")
-    public ResponseEntity<List<ListItemDto>> getDoubleLinkedListData() {
-        log.info("API request: /structures/double-linked-list");
-        return ResponseEntity.ok(analysisService.getDoubleLinkedListData());
+    public ResponseEntity<List<ListItemDto>> getDoubleLinkedListData(@RequestParam(defaultValue = "8") int n) {
+        log.debug("API request: /structures/double-linked-list n={}", n);
+        return ResponseEntity.ok(analysisService.getDoubleLinkedListData(n));
     }
 
     @GetMapping("/structures/circular-double-linked-list")
-    public ResponseEntity<List<ListItemDto>> getCircularDoubleLinkedListData() {
-        log.info("API request: /structures/circular-double-linked-list");
-        return ResponseEntity.ok(analysisService.getCircularDoubleLinkedListData());
+    public ResponseEntity<List<ListItemDto>> getCircularDoubleLinkedListData(@RequestParam(defaultValue = "8") int n) {
+        log.debug("API request: /structures/circular-double-linked-list n={}", n);
+        return ResponseEntity.ok(analysisService.getCircularDoubleLinkedListData(n));
     }
 
     @GetMapping("/structures/stack")
-    public ResponseEntity<List<ListItemDto>> getStackData() {
-        log.info("API request: /structures/stack");
-        return ResponseEntity.ok(analysisService.getStackData());
+    public ResponseEntity<List<ListItemDto>> getStackData(@RequestParam(defaultValue = "8") int n) {
+        log.debug("API request: /structures/stack n={}", n);
+        return ResponseEntity.ok(analysisService.getStackData(n));
     }
 
     @GetMapping("/structures/queue")
-    public ResponseEntity<List<ListItemDto>> getQueueData() {
-        log.info("API request: /structures/queue");
-        return ResponseEntity.ok(analysisService.getQueueData());
+    public ResponseEntity<List<ListItemDto>> getQueueData(@RequestParam(defaultValue = "8") int n) {
+        log.debug("API request: /structures/queue n={}", n);
+        return ResponseEntity.ok(analysisService.getQueueData(n));
     }
 
     @GetMapping("/structures/tree")
-    public ResponseEntity<TreeNodeDto> getTreeData() {
-        log.info("API request: /structures/tree");
-        return ResponseEntity.ok(analysisService.getTreeData());
+    public ResponseEntity<TreeNodeDto> getTreeData(@RequestParam(required = false) String node,
+                                                   @RequestParam(defaultValue = "2") int depth) {
+        log.debug("API request: /structures/tree node={} depth={}", node, depth);
+        return ResponseEntity.ok(analysisService.getTreeData(node, depth));
+    }
+
+    @GetMapping("/range/summary")
+    public ResponseEntity<RangeSummaryDto> getRangeSummary(@RequestParam String from, @RequestParam String to) {
+        log.debug("API request: /range/summary from={} to={}", from, to);
+        return ResponseEntity.ok(analysisService.getRangeSummary(from, to));
+    }
+    
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestResultDto> ingestBatch(@RequestBody DetectionsWrapper body) {
+        List<DetectionDto> detections = body.getDetections() != null ? body.getDetections() : Collections.emptyList();
+        log.debug("API request: /batch ({} detections)", detections.size());
+        return ingestResponse(detectionIngestQueue.offer(detections.iterator()));
+    }
+    
+    @PostMapping(path = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<IngestResultDto> ingestStream(InputStream body) throws IOException {
+        log.debug("API request: /batch (ndjson)");
+        try (MappingIterator<DetectionDto> lines = objectMapper.readerFor(DetectionDto.class).readValues(body)) {
+            NdjsonDetections detections = new NdjsonDetections(lines);
+            IngestResultDto result = detectionIngestQueue.offer(detections);
+            if (detections.failedLine != null) {
+                log.debug("Rejected ndjson line {} after {} detections: {}",
+                        detections.failedLine, result.getAccepted(), detections.error);
+                result.setFailedLine(detections.failedLine);
+                result.setError(detections.error);
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ingestResponse(result);
+        }
+    }
+    
+    private ResponseEntity<IngestResultDto> ingestResponse(IngestResultDto result) {
+        HttpStatus status = result.getRejected() > 0 ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(result);
+    }
+    
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDetections() {
+        log.debug("API request: /stream");
+        return detectionStreamService.subscribe();
     }
     
     @GetMapping("/analysis/summary")
     public ResponseEntity<Map<String, Object>> getAnalysisSummary() {
-        log.info("API request: /analysis/summary");
-        
-        Map<String, Double> speeds = analysisService.getAvgSpeedByLane();
-        
-        double avgSpeed = speeds.values().stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        
-        double maxSpeed = speeds.values().stream()
-                .mapToDouble(Double::doubleValue)
-                .max()
-                .orElse(0.0);
-        
-        Map<String, Object> summary = Map.of(
-                "averageSpeed", avgSpeed,
-                "maxSpeed", maxSpeed,
-                "bottleneckCount", analysisService.getBottlenecks().size()
-        );
-        
-        return ResponseEntity.ok(summary);
-    }
-}
\ No newline at end of file
+        log.debug("API request: /analysis/summary");
+        return ResponseEntity.ok(analysisService.getAnalysisSummary());
+    }
+
+    /**
+     * All dashboard widgets in one call; {@code fields} (comma separated)
+     * selects a subset and {@code maxPoints} downsamples the series.
+     */
+    @GetMapping("/dashboard")
+    public ResponseEntity<DashboardDto> getDashboard(@RequestParam(required = false) Set<String> fields,
+                                                     @RequestParam(required = false) Integer maxPoints) {
+        log.debug("API request: /dashboard fields={} maxPoints={}", fields, maxPoints);
+        return ResponseEntity.ok(analysisService.getDashboard(fields != null ? fields : Set.of(), maxPoints));
+    }
+
+    /**
+     * Reads NDJSON detections until the first line that is not a valid
+     * detection, which is recorded instead of thrown so the lines before it
+     * still reach the queue.
+     */
+    private static final class NdjsonDetections implements Iterator<DetectionDto> {
+        private final MappingIterator<DetectionDto> lines;
+        private DetectionDto pending;
+        private boolean ready;
+        private Integer failedLine;
+        private String error;
+
+        private NdjsonDetections(MappingIterator<DetectionDto> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && failedLine == null) {
+                try {
+                    ready = lines.hasNextValue();
+                    if (ready) {
+                        pending = lines.nextValue();
+                    }
+                } catch (JsonProcessingException e) {
+                    ready = false;
+                    JsonLocation location = e.getLocation() != null ? e.getLocation() : lines.getCurrentLocation();
+                    failedLine = location.getLineNr();
+                    error = e.getOriginalMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public DetectionDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every dashboard widget in one response. Widgets that were not requested
+ * are null and left out of the JSON.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DashboardDto {
+    private TotalVolumeDto totalVolume;
+    private Map<String, Map<String, Integer>> volumeByLane;
+    private Map<String, Long> hourlyPatterns;
+    private Map<String, Double> avgSpeedByLane;
+    private List<BottleneckDto> bottlenecks;
+    private TrafficEvolutionDto trafficEvolution;
+    private SpeedEvolutionDto speedEvolution;
+    private Map<String, Double> vehicleTypeDominance;
+    private Map<String, Object> summary;
+}
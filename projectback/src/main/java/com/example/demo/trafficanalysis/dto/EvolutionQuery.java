@@ -0,0 +1,31 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Query parameters of the temporal endpoints. {@code from}/{@code to} bound
+ * {@code timestampMs} (inclusive), {@code limit} caps the page size and
+ * {@code cursor} is the {@code nextCursor} returned by the previous page.
+ * With {@code maxPoints} the series is downsampled server-side using
+ * {@code mode}: {@code lttb} (default), {@code avg}, {@code min} or {@code max}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EvolutionQuery {
+    private Long from;
+    private Long to;
+    private Integer limit;
+    private String cursor;
+    private Integer maxPoints;
+    private String mode;
+
+    public boolean isUnbounded() {
+        return from == null && to == null && limit == null && cursor == null
+                && maxPoints == null && mode == null;
+    }
+}
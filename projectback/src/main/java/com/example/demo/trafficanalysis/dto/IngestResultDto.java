@@ -0,0 +1,24 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an ingest request. Detections are accepted in order, so the
+ * first {@code accepted} detections were queued and the rest must be resent.
+ * For NDJSON bodies, {@code failedLine} and {@code error} report the first
+ * line that could not be read; nothing after it was queued.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestResultDto {
+    private Integer accepted;
+    private Integer rejected;
+    private Integer queued;
+    private Integer failedLine;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sums and averages over a date range, resolved to whole minutes.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RangeSummaryDto {
+    private String from;
+    private String to;
+    private Long detections;
+    private Long vehicles;
+    private Double avgVehicles;
+    private Double avgSpeed;
+}
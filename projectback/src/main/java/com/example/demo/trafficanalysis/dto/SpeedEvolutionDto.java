@@ -1,11 +1,14 @@
 package com.trafficanalysis.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -13,7 +16,13 @@ import java.util.List;
 @NoArgsConstructor
 public class SpeedEvolutionDto {
     private List<String> timestamps;
-    private List<Double> lane_1;
-    private List<Double> lane_2;
-    private List<Double> lane_3;
-}
\ No newline at end of file
+    // Epoch seconds (UTC) of the timestamps for the binary format, UNKNOWN_DATE where a date could not be parsed
+    @JsonIgnore
+    private long[] epochSeconds;
+    // Speed series per lane, aligned with timestamps; null where the lane reported no speed.
+    // Lanes without any speed in the range are left out.
+    @JsonSerialize(contentUsing = SpeedSeriesSerializer.class)
+    private Map<String, double[]> lanes;
+    // Cursor of the next page, absent on the last one
+    private String nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.trafficanalysis.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a speed series straight from the primitive array, with missing
+ * points ({@link Double#NaN}) as JSON {@code null}.
+ */
+public class SpeedSeriesSerializer extends StdSerializer<double[]> {
+
+    public SpeedSeriesSerializer() {
+        super(double[].class);
+    }
+
+    @Override
+    public void serialize(double[] values, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(values, values.length);
+        for (double value : values) {
+            if (Double.isNaN(value)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value);
+            }
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,26 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Distribution of the reported average speeds of one lane. Percentiles are
+ * approximate (within {@code traffic.speed.histogram.bin-width}).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpeedStatsDto {
+    private Long count;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private Double stdDev;
+    private Double p50;
+    private Double p90;
+    private Double p95;
+    private Double p99;
+}
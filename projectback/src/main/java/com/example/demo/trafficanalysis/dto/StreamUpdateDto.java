@@ -0,0 +1,27 @@
+package com.trafficanalysis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delta pushed to stream subscribers after an ingest: the new detections and
+ * the current value of the aggregates they changed.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class StreamUpdateDto {
+    private Long version;
+    private List<DetectionDto> detections;
+    private Map<String, Long> totals;
+    private Map<String, Double> avgSpeedByLane;
+    private Map<String, Map<String, Integer>> volumeByLane;
+    // Updates this client missed because its buffer was full
+    private Long dropped;
+}
@@ -12,7 +12,7 @@ import java.util.Map;
 @AllArgsConstructor
 @NoArgsConstructor
 public class TotalVolumeDto {
-    private Map<String, Integer> hourly;
-    private Map<String, Integer> daily;
-    private Map<String, Integer> total;
+    private Map<String, Long> hourly;
+    private Map<String, Long> daily;
+    private Map<String, Long> total;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.trafficanalysis.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,13 +8,19 @@ import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+// Counts are primitive arrays so they are written without boxing
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class TrafficEvolutionDto {
     private List<String> timestamps;
-    private List<Integer> car;
-    private List<Integer> bus;
-    private List<Integer> truck;
+    // Epoch seconds (UTC) of the timestamps for the binary format, UNKNOWN_DATE where a date could not be parsed
+    @JsonIgnore
+    private long[] epochSeconds;
+    private int[] car;
+    private int[] bus;
+    private int[] truck;
+    // Cursor of the next page, absent on the last one
+    private String nextCursor;
 }
\ No newline at end of file
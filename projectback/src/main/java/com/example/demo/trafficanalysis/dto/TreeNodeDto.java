@@ -13,5 +13,10 @@ import java.util.List;
 @NoArgsConstructor
 public class TreeNodeDto {
     private String value;
+    private Long count;
+    private Long vehicles;
+    private Double avgSpeed;
+    // Children in the index; may exceed children.size() when the depth was cut
+    private Integer childCount;
     private List<TreeNodeDto> children;
 }
\ No newline at end of file
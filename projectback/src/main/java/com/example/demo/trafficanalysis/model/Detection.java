@@ -6,26 +6,54 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_detection_date_timestamp", columnNames = {"date", "timestamp_ms"}),
+        indexes = @Index(name = "idx_detection_timestamp", columnList = "timestamp_ms, id"))
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class Detection {
 
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    // Pooled ids instead of IDENTITY so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detection_seq")
+    @SequenceGenerator(name = "detection_seq", sequenceName = "detection_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private Long timestampMs;
     private String date;
 
-    @Column(columnDefinition = "TEXT")
-    private String objectsTotal;
+    // Totals by vehicle class (the detector only reports car, bus and truck); null when not reported
+    private Integer carCount;
+    private Integer busCount;
+    private Integer truckCount;
+
+    @ElementCollection
+    @CollectionTable(
+            name = "detection_lane_metric",
+            joinColumns = @JoinColumn(name = "detection_id"),
+            indexes = {
+                    @Index(name = "idx_lane_metric_detection", columnList = "detection_id"),
+                    @Index(name = "idx_lane_metric_lane", columnList = "lane")
+            })
+    @Builder.Default
+    private List<LaneMetric> laneMetrics = new ArrayList<>();
+
+    // Legacy JSON columns, only read by DetectionMigrationService to move old rows to the typed columns
+    @Column(name = "objects_total", columnDefinition = "TEXT")
+    private String legacyObjectsTotal;
 
-    @Column(columnDefinition = "TEXT")
-    private String objectsByLane;
+    @Column(name = "objects_by_lane", columnDefinition = "TEXT")
+    private String legacyObjectsByLane;
 
-    @Column(columnDefinition = "TEXT")
-    private String avgSpeedByLane;
-}
\ No newline at end of file
+    @Column(name = "avg_speed_by_lane", columnDefinition = "TEXT")
+    private String legacyAvgSpeedByLane;
+}
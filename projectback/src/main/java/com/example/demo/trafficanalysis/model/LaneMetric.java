@@ -0,0 +1,27 @@
+package com.trafficanalysis.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-lane metrics of a detection, stored in the {@code detection_lane_metric} table.
+ * A null count means the class was not reported for the lane.
+ */
+@Embeddable
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LaneMetric {
+
+    private String lane;
+
+    private Integer carCount;
+    private Integer busCount;
+    private Integer truckCount;
+
+    private Double avgSpeed;
+}
@@ -0,0 +1,10 @@
+package com.trafficanalysis.model;
+
+/**
+ * Bucket kinds of {@link TrafficRollup}: the hour of day (0-23) or the ISO
+ * day of week (1 = Monday .. 7 = Sunday).
+ */
+public enum RollupGranularity {
+    HOUR_OF_DAY,
+    DAY_OF_WEEK
+}
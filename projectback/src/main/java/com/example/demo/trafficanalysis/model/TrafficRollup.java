@@ -0,0 +1,46 @@
+package com.trafficanalysis.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vehicles counted per time bucket, lane and vehicle class, maintained at
+ * ingest time. {@link #TOTAL_LANE} holds the detection totals (objects_total).
+ */
+@Entity
+@Table(
+        name = "traffic_rollup",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_rollup_bucket",
+                columnNames = {"granularity", "bucket", "lane", "vehicle_class"}))
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrafficRollup {
+
+    public static final String TOTAL_LANE = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private RollupGranularity granularity;
+
+    @Column(nullable = false)
+    private Long bucket;
+
+    @Column(nullable = false)
+    private String lane;
+
+    @Column(nullable = false)
+    private String vehicleClass;
+
+    @Column(nullable = false)
+    private Long vehicleCount;
+}
@@ -1,18 +1,55 @@
-ppackage com.trafficanalysis.repository;
+package com.trafficanalysis.repository;
 
 import com.trafficanalysis.model.Detection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DetectionRepository extends JpaRepository<Detection, Long> {
     
-    @Query("SELECT d FROM Detection d ORDER BY d.timestampMs")
-    List<Detection> findAllOrderByTimestampAsc();
+    /**
+     * Detections with timestampMs in [from, to] in (timestampMs, id) order, at
+     * most {@code limit.getPageSize()} of them. The fetch size of
+     * {@link Integer#MIN_VALUE} makes Connector/J stream the rows one by one
+     * instead of buffering the whole result, for this query only. Read in
+     * idx_detection_timestamp order, so no sort is needed. Must be consumed
+     * inside a transaction, and the connection runs no other statement until
+     * the stream is closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d FROM Detection d WHERE d.timestampMs BETWEEN :from AND :to ORDER BY d.timestampMs, d.id")
+    Stream<Detection> streamRange(@Param("from") Long from, @Param("to") Long to, Pageable limit);
     
-    @Query("SELECT d FROM Detection d ORDER BY d.timestampMs DESC")
-    List<Detection> findAllOrderByTimestampDesc();
-}
\ No newline at end of file
+    @Query("SELECT d.id FROM Detection d WHERE d.id > :afterId ORDER BY d.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT d FROM Detection d LEFT JOIN FETCH d.laneMetrics WHERE d.id IN :ids ORDER BY d.id")
+    List<Detection> findAllWithLaneMetricsByIdIn(@Param("ids") List<Long> ids);
+    
+    Optional<Detection> findTopByOrderByDateDescTimestampMsDesc();
+    
+    @Query("SELECT d FROM Detection d WHERE d.id > :afterId AND (d.legacyObjectsTotal IS NOT NULL "
+            + "OR d.legacyObjectsByLane IS NOT NULL OR d.legacyAvgSpeedByLane IS NOT NULL) ORDER BY d.id")
+    List<Detection> findLegacyJsonRows(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Moves the pooled id sequence past the ids assigned by the former AUTO_INCREMENT column
+    @Modifying
+    @Query(value = "UPDATE detection_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + :allocationSize + 1 FROM detection) "
+            + "WHERE next_val <= (SELECT COALESCE(MAX(id), 0) + :allocationSize FROM detection)",
+            nativeQuery = true)
+    int alignIdSequence(@Param("allocationSize") int allocationSize);
+}
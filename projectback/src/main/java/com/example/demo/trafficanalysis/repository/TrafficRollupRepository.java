@@ -0,0 +1,23 @@
+package com.trafficanalysis.repository;
+
+import com.trafficanalysis.model.RollupGranularity;
+import com.trafficanalysis.model.TrafficRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TrafficRollupRepository extends JpaRepository<TrafficRollup, Long> {
+    
+    @Query("SELECT r.bucket AS bucket, SUM(r.vehicleCount) AS vehicles FROM TrafficRollup r "
+            + "WHERE r.granularity = :granularity AND r.lane = :lane GROUP BY r.bucket")
+    List<BucketTotal> sumTotalsByBucket(@Param("granularity") RollupGranularity granularity, @Param("lane") String lane);
+    
+    interface BucketTotal {
+        Long getBucket();
+        Long getVehicles();
+    }
+}
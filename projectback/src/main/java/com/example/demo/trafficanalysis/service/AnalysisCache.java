@@ -0,0 +1,58 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.store.DataVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes derived analysis results per {@link DataVersion}. An entry computed
+ * for an older version is recomputed on the next read, so nothing has to be
+ * evicted explicitly when new detections are ingested.
+ * <p>
+ * Exposes {@code traffic.analysis.cache.requests} (tagged hit/miss),
+ * {@code traffic.analysis.cache.size} and {@code traffic.analysis.cache.hit.ratio}.
+ */
+@Component
+public class AnalysisCache {
+
+    private final DataVersion dataVersion;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public AnalysisCache(DataVersion dataVersion, MeterRegistry meterRegistry) {
+        this.dataVersion = dataVersion;
+        this.hits = Counter.builder("traffic.analysis.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("traffic.analysis.cache.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gaugeMapSize("traffic.analysis.cache.size", Tags.empty(), entries);
+        meterRegistry.gauge("traffic.analysis.cache.hit.ratio", this, AnalysisCache::hitRatio);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long version = dataVersion.current();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return (T) entry.value();
+        }
+        misses.increment();
+        T value = loader.get();
+        entries.put(key, new Entry(version, value));
+        return value;
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0.0;
+    }
+
+    private record Entry(long version, Object value) {
+    }
+}
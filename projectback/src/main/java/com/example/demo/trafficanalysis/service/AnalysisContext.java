@@ -0,0 +1,30 @@
+package com.trafficanalysis.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-request memo of derived metrics, so a metric needed by several service
+ * methods during one request (e.g. average speed by lane for the summary and
+ * for the bottlenecks) is computed only once.
+ */
+@Component
+@RequestScope
+public class AnalysisContext {
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String key, Supplier<T> supplier) {
+        Object value = values.get(key);
+        if (value == null) {
+            value = supplier.get();
+            values.put(key, value);
+        }
+        return (T) value;
+    }
+}
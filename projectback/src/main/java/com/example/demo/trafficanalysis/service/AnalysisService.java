@@ -1,58 +1,92 @@
 package com.trafficanalysis.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trafficanalysis.dto.*;
-import com.trafficanalysis.model.Detection;
-import com.trafficanalysis.repository.DetectionRepository;
+import com.trafficanalysis.model.RollupGranularity;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionRingBuffer;
+import com.trafficanalysis.store.DetectionStore;
+import com.trafficanalysis.store.ParallelAggregator;
+import com.trafficanalysis.store.TimeBucketIndex;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AnalysisService {
 
-    private final DetectionRepository detectionRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Only the methods the controller calls are timed: calls between methods of
+    // this class bypass the proxy, so a dashboard's sections, or the lane speeds
+    // behind the bottlenecks, count towards the caller's time only
+    private static final String TIMER = "traffic.analysis";
+    private static final String TIMER_DESCRIPTION = "Time to compute an analysis result";
+
+    // Largest page the temporal endpoints return when a limit is given
+    private static final int MAX_PAGE_SIZE = 10_000;
+    // Root, year, day, hour, minute
+    private static final int MAX_TREE_DEPTH = 4;
+    
+    public static final Set<String> DASHBOARD_FIELDS = Set.of("totalVolume", "volumeByLane", "hourlyPatterns",
+            "avgSpeedByLane", "bottlenecks", "trafficEvolution", "speedEvolution", "vehicleTypeDominance", "summary");
+
+    private final DetectionStore detectionStore;
+    private final DetectionRingBuffer detectionRingBuffer;
+    private final DetectionAggregates detectionAggregates;
+    private final AnalysisCache analysisCache;
+    private final AnalysisContext analysisContext;
+    private final RollupService rollupService;
+    private final ParallelAggregator parallelAggregator;
+    private final TimeBucketIndex timeBucketIndex;
 
     public TotalVolumeDto getTotalVolume() {
-        log.info("Getting total volume data");
-        List<Detection> detections = detectionRepository.findAll();
-        
-        // Count total vehicles by type
-        Map<String, Integer> totalCount = new HashMap<>();
-        
-        for (Detection detection : detections) {
-            try {
-                Map<String, Integer> objectsTotal = parseObjectsTotal(detection.getObjectsTotal());
-                
-                for (Map.Entry<String, Integer> entry : objectsTotal.entrySet()) {
-                    totalCount.put(entry.getKey(), 
-                            totalCount.getOrDefault(entry.getKey(), 0) + entry.getValue());
-                }
-            } catch (Exception e) {
-                log.error("Error parsing objects total: {}", e.getMessage());
-            }
+        return perRequest("totalVolume", this::computeTotalVolume);
+    }
+
+    /**
+     * Total volume of the detections with a timestamp in [from, to]; without
+     * bounds it is the same as {@link #getTotalVolume()}.
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public TotalVolumeDto getTotalVolume(Long from, Long to) {
+        if (from == null && to == null) {
+            return getTotalVolume();
         }
+        ParallelAggregator.Result scan = scanRange(from, to);
+        return toTotalVolume(scan.totalsByClass(), scan.vehiclesByHourOfDay(), scan.vehiclesByDayOfWeek());
+    }
+
+    private TotalVolumeDto computeTotalVolume() {
+        log.debug("Getting total volume data");
+        
+        // Totals from the running aggregates, hourly and daily splits from the
+        // hour-of-day and day-of-week rollups
+        return toTotalVolume(detectionAggregates.getTotalsByClass(),
+                rollupTotals(RollupGranularity.HOUR_OF_DAY),
+                rollupTotals(RollupGranularity.DAY_OF_WEEK));
+    }
+
+    private TotalVolumeDto toTotalVolume(Map<String, Long> totalCount, Map<Long, Long> byHour, Map<Long, Long> byDayOfWeek) {
+        Map<String, Long> hourlyData = new HashMap<>();
+        hourlyData.put("night", sumBuckets(byHour, 0, 5));
+        hourlyData.put("morning", sumBuckets(byHour, 6, 11));
+        hourlyData.put("afternoon", sumBuckets(byHour, 12, 17));
+        hourlyData.put("evening", sumBuckets(byHour, 18, 23));
         
-        // Create hourly and daily aggregated data
-        Map<String, Integer> hourlyData = new HashMap<>();
-        int totalVehicles = totalCount.values().stream().mapToInt(Integer::intValue).sum();
-        hourlyData.put("morning", totalVehicles / 3);
-        hourlyData.put("afternoon", totalVehicles / 2);
-        hourlyData.put("evening", totalVehicles / 4);
-        
-        Map<String, Integer> dailyData = new HashMap<>();
-        dailyData.put("weekday", totalVehicles * 5 / 7);
-        dailyData.put("weekend", totalVehicles * 2 / 7);
+        Map<String, Long> dailyData = new HashMap<>();
+        dailyData.put("weekday", sumBuckets(byDayOfWeek, 1, 5));
+        dailyData.put("weekend", sumBuckets(byDayOfWeek, 6, 7));
         
         return TotalVolumeDto.builder()
                 .hourly(hourlyData)
@@ -61,96 +95,85 @@ public class AnalysisService {
                 .build();
     }
 
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public Map<String, Map<String, Integer>> getVolumeByLane() {
-        log.info("Getting volume by lane data");
-        List<Detection> detections = detectionRepository.findAllOrderByTimestampDesc();
+        return perRequest("volumeByLane", this::computeVolumeByLane);
+    }
+
+    private Map<String, Map<String, Integer>> computeVolumeByLane() {
+        log.debug("Getting volume by lane data");
         
-        if (detections.isEmpty()) {
+        if (detectionStore.size() == 0) {
             log.warn("No detections found for volume by lane analysis");
             return Collections.emptyMap();
         }
         
-        Detection latestDetection = detections.get(0);
-        
-        try {
-            return parseObjectsByLane(latestDetection.getObjectsByLane());
-        } catch (Exception e) {
-            log.error("Error parsing objects by lane: {}", e.getMessage());
-            return Collections.emptyMap();
-        }
+        return detectionAggregates.getLatestVolumeByLane();
     }
 
-    public Map<String, Integer> getHourlyPatterns() {
-        log.info("Getting hourly patterns data");
-        
-        // Create simulated hourly patterns based on real detection data
-        Map<String, Integer> hourlyPatterns = new HashMap<>();
-        List<Detection> detections = detectionRepository.findAll();
-        
-        Map<Integer, Integer> hourCounts = new HashMap<>();
-        
-        for (Detection detection : detections) {
-            try {
-                LocalDateTime dateTime = LocalDateTime.parse(detection.getDate(), 
-                        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                int hour = dateTime.getHour();
-                
-                Map<String, Integer> objectsTotal = parseObjectsTotal(detection.getObjectsTotal());
-                int totalVehicles = objectsTotal.values().stream().mapToInt(Integer::intValue).sum();
-                
-                hourCounts.put(hour, hourCounts.getOrDefault(hour, 0) + totalVehicles);
-            } catch (Exception e) {
-                log.error("Error processing hourly patterns: {}", e.getMessage());
-            }
+    public Map<String, Long> getHourlyPatterns() {
+        log.debug("Getting hourly patterns data");
+        return toHourlyPatterns(rollupTotals(RollupGranularity.HOUR_OF_DAY));
+    }
+
+    /**
+     * Hourly patterns of the detections with a timestamp in [from, to].
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Map<String, Long> getHourlyPatterns(Long from, Long to) {
+        if (from == null && to == null) {
+            return getHourlyPatterns();
         }
-        
-        // Fill in missing hours with simulated data
+        return toHourlyPatterns(scanRange(from, to).vehiclesByHourOfDay());
+    }
+
+    private Map<String, Long> toHourlyPatterns(Map<Long, Long> hourCounts) {
+        // Vehicles per hour of day; hours without traffic are 0
+        Map<String, Long> hourlyPatterns = new HashMap<>();
         for (int hour = 0; hour < 24; hour++) {
-            int count = hourCounts.getOrDefault(hour, 
-                    (hour >= 7 && hour <= 19) ? 100 + (int)(Math.random() * 100) : 20 + (int)(Math.random() * 50));
-            hourlyPatterns.put(String.format("%02d:00", hour), count);
+            hourlyPatterns.put(String.format("%02d:00", hour), hourCounts.getOrDefault((long) hour, 0L));
         }
         
         return hourlyPatterns;
     }
 
     public Map<String, Double> getAvgSpeedByLane() {
-        log.info("Getting average speed by lane data");
-        List<Detection> detections = detectionRepository.findAll();
-        
-        // Calculate average speed by lane
-        Map<String, List<Double>> speedsByLane = new HashMap<>();
-        
-        for (Detection detection : detections) {
-            try {
-                Map<String, Double> avgSpeedByLane = parseAvgSpeedByLane(detection.getAvgSpeedByLane());
-                
-                for (Map.Entry<String, Double> entry : avgSpeedByLane.entrySet()) {
-                    if (!speedsByLane.containsKey(entry.getKey())) {
-                        speedsByLane.put(entry.getKey(), new ArrayList<>());
-                    }
-                    speedsByLane.get(entry.getKey()).add(entry.getValue());
-                }
-            } catch (Exception e) {
-                log.error("Error parsing avg speed by lane: {}", e.getMessage());
-            }
-        }
-        
-        Map<String, Double> result = new HashMap<>();
-        for (Map.Entry<String, List<Double>> entry : speedsByLane.entrySet()) {
-            double avg = entry.getValue().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
-            result.put(entry.getKey(), avg);
+        return perRequest("avgSpeedByLane", this::computeAvgSpeedByLane);
+    }
+
+    /**
+     * Count, mean, min, max, standard deviation and percentiles of the reported
+     * speeds of each lane, kept up to date as detections arrive.
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Map<String, SpeedStatsDto> getSpeedStatsByLane() {
+        log.debug("Getting speed statistics by lane");
+        return perRequest("speedStatsByLane", detectionAggregates::getSpeedStatsByLane);
+    }
+
+    /**
+     * Average speed by lane over the detections with a timestamp in [from, to].
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Map<String, Double> getAvgSpeedByLane(Long from, Long to) {
+        if (from == null && to == null) {
+            return getAvgSpeedByLane();
         }
-        
-        return result;
+        return scanRange(from, to).avgSpeedByLane();
     }
 
+    private Map<String, Double> computeAvgSpeedByLane() {
+        log.debug("Getting average speed by lane data");
+        return detectionAggregates.getAvgSpeedByLane();
+    }
+
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public List<BottleneckDto> getBottlenecks() {
-        log.info("Getting bottlenecks data");
-        
+        log.debug("Getting bottlenecks data");
+        return perRequest("bottlenecks", () -> analysisCache.get("bottlenecks", this::computeBottlenecks));
+    }
+
+    private List<BottleneckDto> computeBottlenecks() {
         // Identify bottlenecks based on speed and volume
         Map<String, Double> avgSpeedByLane = getAvgSpeedByLane();
         Map<String, Map<String, Integer>> volumeByLane = getVolumeByLane();
@@ -203,76 +226,116 @@ public class AnalysisService {
         return bottlenecks;
     }
 
-    public TrafficEvolutionDto getTrafficEvolution() {
-        log.info("Getting traffic evolution data");
-        List<Detection> detections = detectionRepository.findAllOrderByTimestampAsc();
-        
-        List<String> timestamps = new ArrayList<>();
-        List<Integer> cars = new ArrayList<>();
-        List<Integer> buses = new ArrayList<>();
-        List<Integer> trucks = new ArrayList<>();
-        
-        for (Detection detection : detections) {
-            try {
-                Map<String, Integer> objectsTotal = parseObjectsTotal(detection.getObjectsTotal());
-                
-                timestamps.add(detection.getDate());
-                cars.add(objectsTotal.getOrDefault("car", 0));
-                buses.add(objectsTotal.getOrDefault("bus", 0));
-                trucks.add(objectsTotal.getOrDefault("truck", 0));
-            } catch (Exception e) {
-                log.error("Error parsing traffic evolution: {}", e.getMessage());
-            }
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public TrafficEvolutionDto getTrafficEvolution(EvolutionQuery query) {
+        log.debug("Getting traffic evolution data");
+        if (query.isUnbounded()) {
+            return analysisCache.get("trafficEvolution", () -> computeTrafficEvolution(query));
+        }
+        return computeTrafficEvolution(query);
+    }
+
+    private TrafficEvolutionDto computeTrafficEvolution(EvolutionQuery query) {
+        DetectionStore.Snapshot detections = detectionStore.snapshot();
+        int carId = detections.classId("car");
+        int busId = detections.classId("bus");
+        int truckId = detections.classId("truck");
+        
+        RowPage page = selectRows(detections, query);
+        int[] rows = page.rows();
+        double[][] counts = new double[3][rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            counts[0][i] = detections.total(rows[i], carId);
+            counts[1][i] = detections.total(rows[i], busId);
+            counts[2][i] = detections.total(rows[i], truckId);
+        }
+        Sampled sampled = downsample(detections, rows, counts, query);
+        
+        int points = sampled.rows().length;
+        List<String> timestamps = new ArrayList<>(points);
+        long[] epochSeconds = new long[points];
+        int[] cars = new int[points];
+        int[] buses = new int[points];
+        int[] trucks = new int[points];
+        
+        for (int i = 0; i < points; i++) {
+            timestamps.add(detections.date(sampled.rows()[i]));
+            epochSeconds[i] = detections.dateSeconds(sampled.rows()[i]);
+            cars[i] = (int) Math.round(sampled.values()[0][i]);
+            buses[i] = (int) Math.round(sampled.values()[1][i]);
+            trucks[i] = (int) Math.round(sampled.values()[2][i]);
         }
         
         return TrafficEvolutionDto.builder()
                 .timestamps(timestamps)
+                .epochSeconds(epochSeconds)
                 .car(cars)
                 .bus(buses)
                 .truck(trucks)
+                .nextCursor(page.nextCursor())
                 .build();
     }
 
-    public SpeedEvolutionDto getSpeedEvolution() {
-        log.info("Getting speed evolution data");
-        List<Detection> detections = detectionRepository.findAllOrderByTimestampAsc();
-        
-        List<String> timestamps = new ArrayList<>();
-        List<Double> lane1Speeds = new ArrayList<>();
-        List<Double> lane2Speeds = new ArrayList<>();
-        List<Double> lane3Speeds = new ArrayList<>();
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public SpeedEvolutionDto getSpeedEvolution(EvolutionQuery query) {
+        log.debug("Getting speed evolution data");
+        if (query.isUnbounded()) {
+            return analysisCache.get("speedEvolution", () -> computeSpeedEvolution(query));
+        }
+        return computeSpeedEvolution(query);
+    }
+
+    private SpeedEvolutionDto computeSpeedEvolution(EvolutionQuery query) {
+        DetectionStore.Snapshot detections = detectionStore.snapshot();
+        List<String> lanes = detections.lanes();
+        
+        RowPage page = selectRows(detections, query);
+        int[] rows = page.rows();
+        double[][] speeds = new double[lanes.size()][rows.length];
+        for (int laneId = 0; laneId < lanes.size(); laneId++) {
+            for (int i = 0; i < rows.length; i++) {
+                speeds[laneId][i] = detections.laneSpeed(rows[i], laneId);
+            }
+        }
+        Sampled sampled = downsample(detections, rows, speeds, query);
+        
+        int points = sampled.rows().length;
+        List<String> timestamps = new ArrayList<>(points);
+        long[] epochSeconds = new long[points];
+        for (int i = 0; i < points; i++) {
+            timestamps.add(detections.date(sampled.rows()[i]));
+            epochSeconds[i] = detections.dateSeconds(sampled.rows()[i]);
+        }
         
-        for (Detection detection : detections) {
-            try {
-                Map<String, Double> avgSpeedByLane = parseAvgSpeedByLane(detection.getAvgSpeedByLane());
-                
-                timestamps.add(detection.getDate());
-                lane1Speeds.add(avgSpeedByLane.getOrDefault("lane_1", 0.0));
-                lane2Speeds.add(avgSpeedByLane.getOrDefault("lane_2", 0.0));
-                lane3Speeds.add(avgSpeedByLane.getOrDefault("lane_3", 0.0));
-            } catch (Exception e) {
-                log.error("Error parsing speed evolution: {}", e.getMessage());
+        // Lanes ordered naturally (lane_2 before lane_10); lanes without data are left out
+        Map<String, double[]> laneSeries = new TreeMap<>(
+                Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+        for (int laneId = 0; laneId < lanes.size(); laneId++) {
+            double[] series = sampled.values()[laneId];
+            if (Arrays.stream(series).anyMatch(speed -> !Double.isNaN(speed))) {
+                laneSeries.put(lanes.get(laneId), series);
             }
         }
         
         return SpeedEvolutionDto.builder()
                 .timestamps(timestamps)
-                .lane_1(lane1Speeds)
-                .lane_2(lane2Speeds)
-                .lane_3(lane3Speeds)
+                .epochSeconds(epochSeconds)
+                .lanes(laneSeries)
+                .nextCursor(page.nextCursor())
                 .build();
     }
 
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public Map<String, Double> getVehicleTypeDominance() {
-        log.info("Getting vehicle type dominance data");
+        log.debug("Getting vehicle type dominance data");
         
         TotalVolumeDto totalVolume = getTotalVolume();
-        Map<String, Integer> totals = totalVolume.getTotal();
+        Map<String, Long> totals = totalVolume.getTotal();
         
-        int sum = totals.values().stream().mapToInt(Integer::intValue).sum();
+        long sum = totals.values().stream().mapToLong(Long::longValue).sum();
         Map<String, Double> dominance = new HashMap<>();
         
-        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
             double percentage = (sum > 0) ? (entry.getValue() * 100.0 / sum) : 0.0;
             dominance.put(entry.getKey(), percentage);
         }
@@ -280,83 +343,190 @@ public class AnalysisService {
         return dominance;
     }
 
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Map<String, Object> getAnalysisSummary() {
+        log.debug("Getting analysis summary");
+        
+        Map<String, Double> speeds = getAvgSpeedByLane();
+        
+        double avgSpeed = speeds.values().stream()
+                .mapToDouble(Double::doubleValue)
+                .average()
+                .orElse(0.0);
+        
+        double maxSpeed = speeds.values().stream()
+                .mapToDouble(Double::doubleValue)
+                .max()
+                .orElse(0.0);
+        
+        return Map.of(
+                "averageSpeed", avgSpeed,
+                "maxSpeed", maxSpeed,
+                "bottleneckCount", getBottlenecks().size()
+        );
+    }
+
+    /**
+     * The requested dashboard widgets (all of them when {@code fields} is
+     * empty). They are computed within one request, so shared inputs such as
+     * the lane speeds or the total volume are read once, and the series are
+     * downsampled to {@code maxPoints} when given.
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public DashboardDto getDashboard(Set<String> fields, Integer maxPoints) {
+        log.debug("Getting dashboard {}", fields);
+        Set<String> unknown = new TreeSet<>(fields);
+        unknown.removeAll(DASHBOARD_FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown dashboard fields: " + unknown);
+        }
+        Set<String> selected = fields.isEmpty() ? DASHBOARD_FIELDS : fields;
+        EvolutionQuery series = maxPoints != null ? EvolutionQuery.builder().maxPoints(maxPoints).build() : new EvolutionQuery();
+        
+        DashboardDto.DashboardDtoBuilder dashboard = DashboardDto.builder();
+        if (selected.contains("totalVolume")) {
+            dashboard.totalVolume(getTotalVolume());
+        }
+        if (selected.contains("volumeByLane")) {
+            dashboard.volumeByLane(getVolumeByLane());
+        }
+        if (selected.contains("hourlyPatterns")) {
+            dashboard.hourlyPatterns(getHourlyPatterns());
+        }
+        if (selected.contains("avgSpeedByLane")) {
+            dashboard.avgSpeedByLane(getAvgSpeedByLane());
+        }
+        if (selected.contains("bottlenecks")) {
+            dashboard.bottlenecks(getBottlenecks());
+        }
+        if (selected.contains("trafficEvolution")) {
+            dashboard.trafficEvolution(getTrafficEvolution(series));
+        }
+        if (selected.contains("speedEvolution")) {
+            dashboard.speedEvolution(getSpeedEvolution(series));
+        }
+        if (selected.contains("vehicleTypeDominance")) {
+            dashboard.vehicleTypeDominance(getVehicleTypeDominance());
+        }
+        if (selected.contains("summary")) {
+            dashboard.summary(getAnalysisSummary());
+        }
+        return dashboard.build();
+    }
+
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public List<Integer> getArrayData() {
-        log.info("Getting array data structure");
-        List<Detection> detections = detectionRepository.findAll();
+        log.debug("Getting array data structure");
+        DetectionStore.Snapshot detections = detectionStore.snapshot();
         
         // Use timestamps or derived values for array visualization
-        return detections.stream()
-                .limit(10)
-                .map(d -> Math.toIntExact(d.getTimestampMs() % 100))
-                .collect(Collectors.toList());
+        List<Integer> values = new ArrayList<>();
+        for (int row = 0; row < Math.min(10, detections.size()); row++) {
+            values.add(Math.toIntExact(detections.timestampMs(row) % 100));
+        }
+        return values;
     }
 
-    public List<ListItemDto> getLinkedListData() {
-        log.info("Getting linked list data structure");
-        return createListItems(8);
+    // The list views show the latest detections in arrival order
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<ListItemDto> getLinkedListData(int count) {
+        log.debug("Getting linked list data structure");
+        return createListItems(latestInArrivalOrder(count), count);
     }
 
-    public List<ListItemDto> getDoubleLinkedListData() {
-        log.info("Getting double linked list data structure");
-        return createListItems(8);
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<ListItemDto> getDoubleLinkedListData(int count) {
+        log.debug("Getting double linked list data structure");
+        return createListItems(latestInArrivalOrder(count), count);
     }
 
-    public List<ListItemDto> getCircularDoubleLinkedListData() {
-        log.info("Getting circular double linked list data structure");
-        return createListItems(8);
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<ListItemDto> getCircularDoubleLinkedListData(int count) {
+        log.debug("Getting circular double linked list data structure");
+        return createListItems(latestInArrivalOrder(count), count);
     }
 
-    public List<ListItemDto> getStackData() {
-        log.info("Getting stack data structure");
-        return createListItems(8);
+    // Top of the stack (newest detection) first
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<ListItemDto> getStackData(int count) {
+        log.debug("Getting stack data structure");
+        return createListItems(detectionRingBuffer.tail(count), count);
     }
 
-    public List<ListItemDto> getQueueData() {
-        log.info("Getting queue data structure");
-        return createListItems(8);
+    // Front of the queue (oldest retained detection) first
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<ListItemDto> getQueueData(int count) {
+        log.debug("Getting queue data structure");
+        return createListItems(detectionRingBuffer.head(count), count);
     }
 
-    public TreeNodeDto getTreeData() {
-        log.info("Getting tree data structure");
-        
-        List<TreeNodeDto> childrenLevel1 = new ArrayList<>();
-        
-        List<TreeNodeDto> childrenA = new ArrayList<>();
-        childrenA.add(TreeNodeDto.builder().value("A1").children(null).build());
-        childrenA.add(TreeNodeDto.builder().value("A2").children(null).build());
-        
-        List<TreeNodeDto> childrenB = new ArrayList<>();
-        childrenB.add(TreeNodeDto.builder().value("B1").children(null).build());
-        childrenB.add(TreeNodeDto.builder().value("B2").children(null).build());
-        childrenB.add(TreeNodeDto.builder().value("B3").children(null).build());
-        
-        List<TreeNodeDto> childrenC = new ArrayList<>();
-        childrenC.add(TreeNodeDto.builder().value("C1").children(null).build());
-        
-        childrenLevel1.add(TreeNodeDto.builder().value("A").children(childrenA).build());
-        childrenLevel1.add(TreeNodeDto.builder().value("B").children(childrenB).build());
-        childrenLevel1.add(TreeNodeDto.builder().value("C").children(childrenC).build());
-        
-        return TreeNodeDto.builder()
-                .value("Root")
-                .children(childrenLevel1)
+    /**
+     * The time index as a year / day / hour / minute tree with per-node counts,
+     * {@code depth} levels below the bucket {@code node} (the root when null).
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public TreeNodeDto getTreeData(String node, int depth) {
+        log.debug("Getting tree data structure");
+        TreeNodeDto tree = timeBucketIndex.toTree(node, Math.min(depth, MAX_TREE_DEPTH));
+        if (tree == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No such tree node: " + node);
+        }
+        return tree;
+    }
+
+    /**
+     * Detections, vehicles and average vehicles/speed between two detection
+     * dates ({@code yyyy-MM-dd HH:mm:ss}, both inclusive), from the time index.
+     */
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public RangeSummaryDto getRangeSummary(String from, String to) {
+        log.debug("Getting range summary {} - {}", from, to);
+        long fromSeconds;
+        long toSeconds;
+        try {
+            fromSeconds = LocalDateTime.parse(from, DetectionStore.DATE_FORMAT).toEpochSecond(ZoneOffset.UTC);
+            toSeconds = LocalDateTime.parse(to, DetectionStore.DATE_FORMAT).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dates must be yyyy-MM-dd HH:mm:ss");
+        }
+        if (fromSeconds > toSeconds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        TimeBucketIndex.RangeTotals totals = timeBucketIndex.sum(fromSeconds, toSeconds);
+        return RangeSummaryDto.builder()
+                .from(from)
+                .to(to)
+                .detections(totals.getDetections())
+                .vehicles(totals.getVehicles())
+                .avgVehicles(totals.getAvgVehicles())
+                .avgSpeed(totals.getAvgSpeed())
                 .build();
     }
 
     // Helper methods
-    private List<ListItemDto> createListItems(int count) {
-        List<Detection> detections = detectionRepository.findAll();
-        if (detections.isEmpty()) {
+    private int[] latestInArrivalOrder(int count) {
+        int[] rows = detectionRingBuffer.tail(count);
+        for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+        return rows;
+    }
+
+    private List<ListItemDto> createListItems(int[] rows, int count) {
+        if (rows.length == 0) {
             // Fallback to generated data if no detections
-            return generateFallbackListItems(count);
+            return generateFallbackListItems(Math.min(count, detectionRingBuffer.capacity()));
         }
         
-        List<ListItemDto> items = new ArrayList<>();
-        for (int i = 0; i < Math.min(count, detections.size()); i++) {
-            Detection detection = detections.get(i);
+        // Taken after reading the buffer, so it contains every buffered row
+        DetectionStore.Snapshot detections = detectionStore.snapshot();
+        List<ListItemDto> items = new ArrayList<>(rows.length);
+        for (int row : rows) {
             items.add(ListItemDto.builder()
-                    .id(i + 1)
-                    .date(detection.getDate())
+                    .id(row + 1)
+                    .date(detections.date(row))
                     .build());
         }
         return items;
@@ -376,31 +546,134 @@ public class AnalysisService {
         return items;
     }
     
-    // JSON parsing methods
-    private Map<String, Integer> parseObjectsTotal(String json) {
-        try {
-            return objectMapper.readValue(json, new TypeReference<Map<String, Integer>>() {});
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing objectsTotal JSON: {}", e.getMessage());
-            return Collections.emptyMap();
+    /**
+     * Rows of the requested time range in timestamp order, starting after the
+     * cursor. The cursor is the keyset position {@code <timestampMs>:<row>} of
+     * the last row of the previous page.
+     */
+    private RowPage selectRows(DetectionStore.Snapshot detections, EvolutionQuery query) {
+        long from = query.getFrom() != null ? query.getFrom() : Long.MIN_VALUE;
+        long to = query.getTo() != null ? query.getTo() : Long.MAX_VALUE;
+        int limit = query.getLimit() != null ? Math.max(1, Math.min(query.getLimit(), MAX_PAGE_SIZE)) : Integer.MAX_VALUE - 1;
+        
+        long afterTimestamp = Long.MIN_VALUE;
+        int afterRow = -1;
+        if (query.getCursor() != null) {
+            try {
+                String[] parts = query.getCursor().split(":", 2);
+                afterTimestamp = Long.parseLong(parts[0]);
+                afterRow = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + query.getCursor());
+            }
         }
+        
+        // One extra row tells whether there is a next page
+        int[] rows = detections.rangeByTimestamp(from, to, afterTimestamp, afterRow, limit + 1);
+        if (rows.length <= limit) {
+            return new RowPage(rows, null);
+        }
+        int last = rows[limit - 1];
+        return new RowPage(Arrays.copyOf(rows, limit), detections.timestampMs(last) + ":" + last);
+    }
+
+    private record RowPage(int[] rows, String nextCursor) {
     }
 
-    private Map<String, Map<String, Integer>> parseObjectsByLane(String json) {
+    /**
+     * Reduces the series to at most {@code maxPoints} points. LTTB keeps real
+     * points, chosen on the sum of the series so all of them share timestamps;
+     * the bucket modes aggregate each equal-width time bucket and label it with
+     * its first row.
+     */
+    private Sampled downsample(DetectionStore.Snapshot detections, int[] rows, double[][] series, EvolutionQuery query) {
+        Integer maxPoints = query.getMaxPoints();
+        if (maxPoints == null || rows.length <= maxPoints) {
+            return new Sampled(rows, series);
+        }
+        SeriesDownsampler.Mode mode;
         try {
-            return objectMapper.readValue(json, new TypeReference<Map<String, Map<String, Integer>>>() {});
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing objectsByLane JSON: {}", e.getMessage());
-            return Collections.emptyMap();
+            mode = SeriesDownsampler.Mode.from(query.getMode());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode: " + query.getMode());
+        }
+        
+        long[] x = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            x[i] = detections.timestampMs(rows[i]);
+        }
+        
+        if (mode == SeriesDownsampler.Mode.LTTB) {
+            double[] y = new double[rows.length];
+            for (double[] values : series) {
+                for (int i = 0; i < rows.length; i++) {
+                    if (!Double.isNaN(values[i])) {
+                        y[i] += values[i];
+                    }
+                }
+            }
+            int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(x, y, Math.max(1, maxPoints));
+            int[] keptRows = new int[kept.length];
+            double[][] keptValues = new double[series.length][kept.length];
+            for (int i = 0; i < kept.length; i++) {
+                keptRows[i] = rows[kept[i]];
+                for (int s = 0; s < series.length; s++) {
+                    keptValues[s][i] = series[s][kept[i]];
+                }
+            }
+            return new Sampled(keptRows, keptValues);
+        }
+        
+        int[] bounds = SeriesDownsampler.fixedBuckets(x, Math.max(1, maxPoints));
+        int buckets = bounds.length - 1;
+        int[] bucketRows = new int[buckets];
+        double[][] bucketValues = new double[series.length][buckets];
+        for (int b = 0; b < buckets; b++) {
+            bucketRows[b] = rows[bounds[b]];
+            for (int s = 0; s < series.length; s++) {
+                bucketValues[s][b] = SeriesDownsampler.aggregate(series[s], bounds[b], bounds[b + 1], mode);
+            }
         }
+        return new Sampled(bucketRows, bucketValues);
     }
 
-    private Map<String, Double> parseAvgSpeedByLane(String json) {
-        try {
-            return objectMapper.readValue(json, new TypeReference<Map<String, Double>>() {});
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing avgSpeedByLane JSON: {}", e.getMessage());
-            return Collections.emptyMap();
+    private record Sampled(int[] rows, double[][] values) {
+    }
+
+    /**
+     * Aggregates the detections with a timestamp in [from, to] (either bound
+     * optional) with a parallel scan of the store.
+     */
+    private ParallelAggregator.Result scanRange(Long from, Long to) {
+        if (from != null && to != null && from > to) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        DetectionStore.Snapshot detections = detectionStore.snapshot();
+        int[] rows = detections.rangeByTimestamp(from != null ? from : Long.MIN_VALUE,
+                to != null ? to : Long.MAX_VALUE, Long.MIN_VALUE, -1, Integer.MAX_VALUE);
+        return parallelAggregator.aggregate(detections, rows);
+    }
+
+    private Map<Long, Long> rollupTotals(RollupGranularity granularity) {
+        return analysisCache.get("rollup:" + granularity, () -> rollupService.totalsByBucket(granularity));
+    }
+
+    private static long sumBuckets(Map<Long, Long> totals, long first, long last) {
+        long sum = 0L;
+        for (long bucket = first; bucket <= last; bucket++) {
+            sum += totals.getOrDefault(bucket, 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Computes a metric at most once per HTTP request; outside a request
+     * (e.g. the file watcher thread) it is computed on every call.
+     */
+    private <T> T perRequest(String key, Supplier<T> supplier) {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return supplier.get();
         }
+        return analysisContext.computeIfAbsent(key, supplier);
     }
-}
\ No newline at end of file
+}
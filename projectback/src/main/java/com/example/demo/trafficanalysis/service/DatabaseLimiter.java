@@ -0,0 +1,78 @@
+package com.trafficanalysis.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many threads use the database at once
+ * ({@code traffic.db.max-concurrency}, by default the Hikari pool size).
+ * <p>
+ * With virtual threads the number of request threads is effectively
+ * unbounded, so without this every request would queue inside Hikari and
+ * time out there. Request paths wait at most {@code traffic.db.acquire-timeout-ms}
+ * and then fail fast with 503; background ingestion waits as long as needed.
+ */
+@Component
+public class DatabaseLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Timer waitTimer;
+
+    public DatabaseLimiter(MeterRegistry meterRegistry,
+                           @Value("${traffic.db.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+                           @Value("${traffic.db.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.waitTimer = Timer.builder("traffic.db.wait")
+                .description("Time spent waiting for a database permit")
+                .register(meterRegistry);
+        meterRegistry.gauge("traffic.db.permits.available", permits, Semaphore::availablePermits);
+    }
+
+    /**
+     * Runs a database call from a request path, failing with 503 when no
+     * permit frees up in time.
+     */
+    public <T> T call(Supplier<T> work) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for the database");
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Database busy, retry later");
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs background database work, waiting for a permit as long as needed.
+     */
+    public void runBlocking(Runnable work) {
+        long start = System.nanoTime();
+        permits.acquireUninterruptibly();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+}
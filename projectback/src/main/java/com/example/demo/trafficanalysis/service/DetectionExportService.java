@@ -0,0 +1,156 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.model.Detection;
+import com.trafficanalysis.repository.DetectionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Streams the traffic evolution of a time range straight from the database
+ * to the response. Rows are streamed by the driver, written as they arrive
+ * and detached right after, so memory stays constant however many rows are
+ * exported, and the first bytes are sent before the scan finishes.
+ * <p>
+ * The cursor keeps a pooled connection for as long as the client takes to
+ * read the response, so exports do not use the {@link DatabaseLimiter}
+ * permits that guard the analysis endpoints. They have their own pool of
+ * {@code traffic.export.max-concurrency} permits (503 when none frees up within
+ * {@code traffic.export.acquire-timeout-ms}), and one export writes at most
+ * {@code traffic.export.max-rows} rows, ending with {@code "truncated": true}
+ * when there were more.
+ */
+@Service
+@Slf4j
+public class DetectionExportService {
+
+    // Rows written between flushes to the client
+    private static final int FLUSH_ROWS = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DetectionRepository detectionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final int maxRows;
+
+    public DetectionExportService(DetectionRepository detectionRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${traffic.export.max-concurrency:2}") int maxConcurrency,
+                                  @Value("${traffic.export.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+                                  @Value("${traffic.export.max-rows:1000000}") int maxRows) {
+        this.detectionRepository = detectionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.maxRows = maxRows;
+        meterRegistry.gauge("traffic.export.permits.available", permits, Semaphore::availablePermits);
+    }
+
+    /**
+     * Writes {@code {"detections": [{"timestamp_ms", "date", "car", "bus", "truck"}, ...], "count": n}}
+     * for the detections with timestampMs in [from, to], in timestamp order.
+     * Classes the detector did not report are left out of a row.
+     */
+    public void writeEvolution(Long from, Long to, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        acquire();
+        try {
+            long exported = write(from != null ? from : Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE, out);
+            log.info("Exported {} detections in {} ms", exported, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for an export slot");
+        }
+        if (!acquired) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running, retry later");
+        }
+    }
+
+    private long write(long from, long to, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("detections");
+            long[] exported = new long[1];
+            // One row past the cap tells whether the export was truncated, and
+            // the server stops there instead of the driver draining the rest
+            PageRequest limit = PageRequest.of(0, maxRows < Integer.MAX_VALUE ? maxRows + 1 : maxRows);
+            boolean truncated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                try (Stream<Detection> detections = detectionRepository.streamRange(from, to, limit)) {
+                    Iterator<Detection> rows = detections.iterator();
+                    exported[0] = writeRows(rows, generator);
+                    return rows.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            generator.writeEndArray();
+            generator.writeNumberField("count", exported[0]);
+            if (truncated) {
+                generator.writeBooleanField("truncated", true);
+            }
+            generator.writeEndObject();
+            return exported[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeRows(Iterator<Detection> detections, JsonGenerator generator) throws IOException {
+        long count = 0;
+        while (count < maxRows && detections.hasNext()) {
+            Detection detection = detections.next();
+            generator.writeStartObject();
+            generator.writeNumberField("timestamp_ms", detection.getTimestampMs());
+            generator.writeStringField("date", detection.getDate());
+            writeCount(generator, DetectionMapper.CAR, detection.getCarCount());
+            writeCount(generator, DetectionMapper.BUS, detection.getBusCount());
+            writeCount(generator, DetectionMapper.TRUCK, detection.getTruckCount());
+            generator.writeEndObject();
+            entityManager.detach(detection);
+            // Push each fetched block to the client instead of buffering the response
+            if (++count % FLUSH_ROWS == 1) {
+                generator.flush();
+            }
+        }
+        return count;
+    }
+
+    private static void writeCount(JsonGenerator generator, String field, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.trafficanalysis.service;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Loads the detector's output file; what {@link DetectionFileWatcher} runs
+ * once writes to it settle.
+ */
+public interface DetectionFileLoader {
+
+    File getDetectionFile();
+
+    /**
+     * Stores the detections of the file that were not stored yet.
+     *
+     * @throws com.fasterxml.jackson.core.JsonProcessingException when the file
+     *         is not valid JSON, e.g. because it is still being written
+     */
+    void loadAndSaveDetections(File file) throws IOException;
+}
@@ -0,0 +1,154 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the detector's output file and loads it once writes settle.
+ * <p>
+ * The detector rewrites the whole file, which shows up as a burst of
+ * ENTRY_MODIFY events (or a single ENTRY_CREATE when it is replaced by a
+ * rename). Every event restarts a {@code traffic.detections.debounce-ms}
+ * timer, so a burst results in one load after the last write. A file that is
+ * still incomplete when read is retried after another debounce period.
+ * <p>
+ * {@code traffic.watcher.lag} times each burst from its first event until
+ * its detections are stored.
+ */
+@Component
+@Slf4j
+public class DetectionFileWatcher {
+
+    private static final int MAX_RETRIES = 3;
+
+    private final DetectionFileLoader detectionFileLoader;
+    private final long debounceMs;
+    private final Timer lagTimer;
+    // One thread blocks on the watch service, the other runs the loads
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "detection-file-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private WatchService watchService;
+    private ScheduledFuture<?> pendingLoad;
+    private int retries;
+    // First event of the burst being handled, 0 when idle
+    private long burstStartNanos;
+
+    public DetectionFileWatcher(DetectionFileLoader detectionFileLoader,
+                                MeterRegistry meterRegistry,
+                                @Value("${traffic.detections.debounce-ms:500}") long debounceMs) {
+        this.detectionFileLoader = detectionFileLoader;
+        this.debounceMs = debounceMs;
+        this.lagTimer = Timer.builder("traffic.watcher.lag")
+                .description("Time from a file change to its detections being stored")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        File file = detectionFileLoader.getDetectionFile().getAbsoluteFile();
+        Path directory = file.toPath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            log.warn("Not watching {}: directory does not exist", file);
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("Error starting file watcher for {}", file, e);
+            return;
+        }
+        log.info("Starting file watcher for: {}", file);
+        String fileName = file.getName();
+        executor.execute(() -> watch(fileName));
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        executor.shutdownNow();
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch(String fileName) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || fileName.equals(event.context().toString())) {
+                        scheduleLoad(false);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Watched directory is no longer accessible, stopping file watcher");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scheduleLoad(boolean retry) {
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+        }
+        if (!retry) {
+            retries = 0;
+            if (burstStartNanos == 0) {
+                burstStartNanos = System.nanoTime();
+            }
+        }
+        pendingLoad = executor.schedule(this::load, debounceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void load() {
+        File file = detectionFileLoader.getDetectionFile();
+        try {
+            log.info("Detected change in {}", file.getName());
+            detectionFileLoader.loadAndSaveDetections(file);
+            recordLag();
+        } catch (JsonProcessingException e) {
+            if (retryAllowed()) {
+                log.warn("{} looks incomplete, retrying: {}", file.getName(), e.getOriginalMessage());
+                scheduleLoad(true);
+            } else {
+                log.error("Giving up loading {} after {} retries", file, MAX_RETRIES, e);
+                recordLag();
+            }
+        } catch (Exception e) {
+            log.error("Error loading {}", file, e);
+            recordLag();
+        }
+    }
+
+    private synchronized void recordLag() {
+        if (burstStartNanos != 0) {
+            lagTimer.record(System.nanoTime() - burstStartNanos, TimeUnit.NANOSECONDS);
+            burstStartNanos = 0;
+        }
+    }
+
+    private synchronized boolean retryAllowed() {
+        return retries++ < MAX_RETRIES;
+    }
+}
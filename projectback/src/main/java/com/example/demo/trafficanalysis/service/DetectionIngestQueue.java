@@ -0,0 +1,143 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.IngestResultDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded hand-off between the HTTP ingest API and the database.
+ * <p>
+ * Requests only enqueue, so their latency does not depend on the database.
+ * A single writer thread drains the queue in batches of
+ * {@code traffic.ingest.batch-size}, waiting up to {@code traffic.ingest.linger-ms}
+ * to fill a batch. When the queue is full the remaining detections of the
+ * request are rejected and counted, and the client is expected to retry them.
+ */
+@Service
+@Slf4j
+public class DetectionIngestQueue {
+
+    private final JsonLoaderService jsonLoaderService;
+    private final BlockingQueue<DetectionDto> queue;
+    private final int batchSize;
+    private final long lingerMs;
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "detection-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DetectionIngestQueue(JsonLoaderService jsonLoaderService,
+                                DetectionBatchWriter detectionBatchWriter,
+                                MeterRegistry meterRegistry,
+                                @Value("${traffic.ingest.queue-capacity:10000}") int capacity,
+                                @Value("${traffic.ingest.linger-ms:200}") long lingerMs) {
+        this.jsonLoaderService = jsonLoaderService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = detectionBatchWriter.getBatchSize();
+        this.lingerMs = lingerMs;
+        this.acceptedCounter = Counter.builder("traffic.ingest.queue.accepted")
+                .description("Detections accepted by the ingest API")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("traffic.ingest.queue.rejected")
+                .description("Detections rejected because the ingest queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("traffic.ingest.queue.failed")
+                .description("Queued detections that could not be written")
+                .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("traffic.ingest.queue.depth", Tags.empty(), queue);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.execute(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.shutdownNow();
+    }
+
+    /**
+     * Queues detections in order without blocking. Once one does not fit,
+     * it and all following detections are rejected.
+     */
+    public IngestResultDto offer(Iterator<DetectionDto> detections) {
+        int accepted = 0;
+        int rejected = 0;
+        while (detections.hasNext()) {
+            DetectionDto detection = detections.next();
+            if (rejected == 0 && queue.offer(detection)) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        acceptedCounter.increment(accepted);
+        rejectedCounter.increment(rejected);
+        if (rejected > 0) {
+            log.warn("Ingest queue full: accepted {}, rejected {}", accepted, rejected);
+        }
+        return IngestResultDto.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .queued(queue.size())
+                .build();
+    }
+
+    private void drainLoop() {
+        List<DetectionDto> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == batchSize || remaining <= 0) {
+                        break;
+                    }
+                    DetectionDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<DetectionDto> batch) {
+        try {
+            int saved = jsonLoaderService.ingest(batch);
+            log.debug("Ingested {} queued detections ({} skipped)", saved, batch.size() - saved);
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.error("Error writing {} queued detections", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.Detection;
+import com.trafficanalysis.model.LaneMetric;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Converts between the detector's JSON shape ({@link DetectionDto}) and the
+ * typed {@link Detection} columns.
+ */
+@Component
+public class DetectionMapper {
+
+    public static final String CAR = "car";
+    public static final String BUS = "bus";
+    public static final String TRUCK = "truck";
+
+    public Detection toEntity(DetectionDto dto) {
+        Detection detection = Detection.builder()
+                .timestampMs(dto.getTimestamp_ms())
+                .date(dto.getDate())
+                .build();
+        applyMetrics(detection, dto);
+        return detection;
+    }
+
+    public void applyMetrics(Detection detection, DetectionDto dto) {
+        Map<String, Integer> totals = orEmpty(dto.getObjects_total());
+        detection.setCarCount(totals.get(CAR));
+        detection.setBusCount(totals.get(BUS));
+        detection.setTruckCount(totals.get(TRUCK));
+
+        Map<String, LaneMetric> metrics = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : orEmpty(dto.getObjects_by_lane()).entrySet()) {
+            Map<String, Integer> vehicles = orEmpty(entry.getValue());
+            LaneMetric metric = metrics.computeIfAbsent(entry.getKey(), this::newLaneMetric);
+            metric.setCarCount(vehicles.get(CAR));
+            metric.setBusCount(vehicles.get(BUS));
+            metric.setTruckCount(vehicles.get(TRUCK));
+        }
+        for (Map.Entry<String, Double> entry : orEmpty(dto.getAvg_speed_by_lane()).entrySet()) {
+            metrics.computeIfAbsent(entry.getKey(), this::newLaneMetric).setAvgSpeed(entry.getValue());
+        }
+        detection.setLaneMetrics(new ArrayList<>(metrics.values()));
+    }
+
+    public DetectionDto toDto(Detection detection) {
+        Map<String, Map<String, Integer>> objectsByLane = new HashMap<>();
+        Map<String, Double> avgSpeedByLane = new HashMap<>();
+        for (LaneMetric metric : detection.getLaneMetrics()) {
+            Map<String, Integer> vehicles = vehicleCounts(metric.getCarCount(), metric.getBusCount(), metric.getTruckCount());
+            if (!vehicles.isEmpty()) {
+                objectsByLane.put(metric.getLane(), vehicles);
+            }
+            if (metric.getAvgSpeed() != null) {
+                avgSpeedByLane.put(metric.getLane(), metric.getAvgSpeed());
+            }
+        }
+
+        return DetectionDto.builder()
+                .timestamp_ms(detection.getTimestampMs())
+                .date(detection.getDate())
+                .objects_total(vehicleCounts(detection.getCarCount(), detection.getBusCount(), detection.getTruckCount()))
+                .objects_by_lane(objectsByLane)
+                .avg_speed_by_lane(avgSpeedByLane)
+                .build();
+    }
+
+    private LaneMetric newLaneMetric(String lane) {
+        return LaneMetric.builder().lane(lane).build();
+    }
+
+    private static Map<String, Integer> vehicleCounts(Integer car, Integer bus, Integer truck) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (car != null) {
+            counts.put(CAR, car);
+        }
+        if (bus != null) {
+            counts.put(BUS, bus);
+        }
+        if (truck != null) {
+            counts.put(TRUCK, truck);
+        }
+        return counts;
+    }
+
+    private static <K, V> Map<K, V> orEmpty(Map<K, V> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+}
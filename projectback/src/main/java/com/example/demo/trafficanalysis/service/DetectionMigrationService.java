@@ -0,0 +1,89 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.Detection;
+import com.trafficanalysis.repository.DetectionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves rows written before the typed columns existed (metrics stored as JSON
+ * TEXT) to the typed columns, one page at a time. Migrated rows have their
+ * legacy columns cleared, so running it again is a no-op.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DetectionMigrationService {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final DetectionRepository detectionRepository;
+    private final DetectionMapper detectionMapper;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public void migrateLegacyJsonColumns() {
+        long lastId = 0L;
+        int migrated = 0;
+        List<Detection> page;
+        do {
+            page = detectionRepository.findLegacyJsonRows(lastId, PageRequest.of(0, PAGE_SIZE));
+            for (Detection detection : page) {
+                migrate(detection);
+                lastId = detection.getId();
+            }
+            detectionRepository.saveAll(page);
+            migrated += page.size();
+        } while (page.size() == PAGE_SIZE);
+
+        if (migrated > 0) {
+            log.info("Migrated {} detections from JSON columns to typed columns", migrated);
+        }
+    }
+
+    /**
+     * Rows inserted before the switch to pooled ids got their id from
+     * AUTO_INCREMENT; start the sequence after them.
+     */
+    @Transactional
+    public void alignIdSequence() {
+        detectionRepository.alignIdSequence(Detection.ID_ALLOCATION_SIZE);
+    }
+
+    private void migrate(Detection detection) {
+        DetectionDto legacy = DetectionDto.builder()
+                .objects_total(parse(detection.getLegacyObjectsTotal(), new TypeReference<Map<String, Integer>>() {}))
+                .objects_by_lane(parse(detection.getLegacyObjectsByLane(), new TypeReference<Map<String, Map<String, Integer>>>() {}))
+                .avg_speed_by_lane(parse(detection.getLegacyAvgSpeedByLane(), new TypeReference<Map<String, Double>>() {}))
+                .build();
+
+        detectionMapper.applyMetrics(detection, legacy);
+        detection.setLegacyObjectsTotal(null);
+        detection.setLegacyObjectsByLane(null);
+        detection.setLegacyAvgSpeedByLane(null);
+    }
+
+    private <T> Map<String, T> parse(String json, TypeReference<Map<String, T>> type) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing legacy detection JSON: {}", e.getMessage());
+            meterRegistry.counter("traffic.ingest.parse.failures", "source", "legacy-column").increment();
+            return null;
+        }
+    }
+}
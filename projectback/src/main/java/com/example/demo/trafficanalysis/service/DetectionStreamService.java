@@ -0,0 +1,162 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.StreamUpdateDto;
+import com.trafficanalysis.store.DetectionAggregates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes ingest deltas to dashboards over Server-Sent Events.
+ * <p>
+ * Every subscriber has its own bounded buffer drained by a small sender pool.
+ * Ingestion only enqueues: when a slow client's buffer is full its oldest
+ * update is dropped (and counted), so no client can hold up ingestion.
+ * Updates published inside a transaction are only sent once it commits.
+ */
+@Service
+@Slf4j
+public class DetectionStreamService {
+
+    private final DetectionAggregates detectionAggregates;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private final Counter droppedCounter;
+
+    public DetectionStreamService(DetectionAggregates detectionAggregates,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${traffic.stream.buffer-size:32}") int bufferSize,
+                                  @Value("${traffic.stream.timeout-ms:0}") long timeoutMs,
+                                  @Value("${traffic.stream.sender-threads:2}") int senderThreads) {
+        this.detectionAggregates = detectionAggregates;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "detection-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.droppedCounter = Counter.builder("traffic.stream.dropped")
+                .description("Updates dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("traffic.stream.subscribers", Collections.emptyList(), subscribers);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        log.info("Stream subscriber connected ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDetectionsIngested(DetectionsIngestedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        StreamUpdateDto update = buildUpdate(event);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(update);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private StreamUpdateDto buildUpdate(DetectionsIngestedEvent event) {
+        Set<String> classes = new HashSet<>();
+        Set<String> lanes = new HashSet<>();
+        for (DetectionDto detection : event.detections()) {
+            if (detection.getObjects_total() != null) {
+                classes.addAll(detection.getObjects_total().keySet());
+            }
+            if (detection.getAvg_speed_by_lane() != null) {
+                lanes.addAll(detection.getAvg_speed_by_lane().keySet());
+            }
+        }
+
+        Map<String, Long> totals = detectionAggregates.getTotalsByClass();
+        totals.keySet().retainAll(classes);
+        Map<String, Double> speeds = new HashMap<>(detectionAggregates.getAvgSpeedByLane());
+        speeds.keySet().retainAll(lanes);
+
+        return StreamUpdateDto.builder()
+                .version(event.version())
+                .detections(event.detections())
+                .totals(totals)
+                .avgSpeedByLane(speeds)
+                .volumeByLane(detectionAggregates.getLatestVolumeByLane())
+                .build();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamUpdateDto> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(StreamUpdateDto update) {
+            while (!buffer.offer(update)) {
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                    droppedCounter.increment();
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamUpdateDto update;
+                while ((update = buffer.poll()) != null) {
+                    long missed = dropped.getAndSet(0);
+                    if (missed > 0) {
+                        update = update.toBuilder().dropped(missed).build();
+                    }
+                    emitter.send(SseEmitter.event().name("detections").id(String.valueOf(update.getVersion())).data(update));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Stream subscriber disconnected: {}", e.getMessage());
+                subscribers.remove(this);
+                buffer.clear();
+                // Ends the async request; without it the connection stays open until it times out
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            // An update may have arrived after the last poll but before the flag was cleared
+            if (!buffer.isEmpty() && subscribers.contains(this) && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+    }
+}
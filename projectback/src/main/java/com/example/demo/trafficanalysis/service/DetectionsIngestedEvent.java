@@ -0,0 +1,12 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+
+import java.util.List;
+
+/**
+ * Published after a batch of detections has been stored and made visible to
+ * the analysis endpoints.
+ */
+public record DetectionsIngestedEvent(long version, List<DetectionDto> detections) {
+}
@@ -1,107 +1,328 @@
 package com.trafficanalysis.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trafficanalysis.dto.DetectionDto;
-import com.trafficanalysis.dto.DetectionsWrapper;
 import com.trafficanalysis.model.Detection;
 import com.trafficanalysis.repository.DetectionRepository;
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionRingBuffer;
+import com.trafficanalysis.store.DetectionStore;
+import com.trafficanalysis.store.TimeBucketIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class JsonLoaderService {
+public class JsonLoaderService implements DetectionFileLoader {
 
     private final DetectionRepository detectionRepository;
+    private final DetectionBatchWriter detectionBatchWriter;
+    private final RollupService rollupService;
+    private final DetectionStore detectionStore;
+    private final DetectionAggregates detectionAggregates;
+    private final DetectionRingBuffer detectionRingBuffer;
+    private final TimeBucketIndex timeBucketIndex;
+    private final DataVersion dataVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DetectionMapper detectionMapper;
+    private final DetectionMigrationService detectionMigrationService;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizeSummary;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    private static final String DETECTION_FILE_PATH = "../detections/detections.json";
+    private static final String DETECTIONS_FIELD = "detections";
     
+    @Value("${traffic.detections.file-path:../detections/detections.json}")
+    private String detectionFilePath;
+    
+    @Value("${traffic.db.startup-maintenance:true}")
+    private boolean startupMaintenance;
+    
+    // Newest (date, timestampMs) already stored; only detections after it are ingested
+    private IngestMark highWaterMark;
+    private long lastFileModified = -1L;
+    private long lastFileLength = -1L;
+    
+    public JsonLoaderService(DetectionRepository detectionRepository,
+                             DetectionBatchWriter detectionBatchWriter,
+                             RollupService rollupService,
+                             DetectionStore detectionStore,
+                             DetectionAggregates detectionAggregates,
+                             DetectionRingBuffer detectionRingBuffer,
+                             TimeBucketIndex timeBucketIndex,
+                             DataVersion dataVersion,
+                             ApplicationEventPublisher eventPublisher,
+                             DetectionMapper detectionMapper,
+                             DetectionMigrationService detectionMigrationService,
+                             MeterRegistry meterRegistry) {
+        this.detectionRepository = detectionRepository;
+        this.detectionBatchWriter = detectionBatchWriter;
+        this.rollupService = rollupService;
+        this.detectionStore = detectionStore;
+        this.detectionAggregates = detectionAggregates;
+        this.detectionRingBuffer = detectionRingBuffer;
+        this.timeBucketIndex = timeBucketIndex;
+        this.dataVersion = dataVersion;
+        this.eventPublisher = eventPublisher;
+        this.detectionMapper = detectionMapper;
+        this.detectionMigrationService = detectionMigrationService;
+        this.meterRegistry = meterRegistry;
+        this.batchSizeSummary = DistributionSummary.builder("traffic.ingest.batch.size")
+                .description("Detections stored per ingested batch")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * A failed migration or store load aborts startup, since the endpoints
+     * would otherwise serve a partial history; a failed import of the
+     * detection file is only logged. The MySQL-specific maintenance is skipped
+     * with {@code traffic.db.startup-maintenance=false}.
+     */
     @PostConstruct
     public void init() {
-        try {
-            loadJsonDataOnStartup();
-            startFileWatcher();
-        } catch (Exception e) {
-            log.error("Error initializing JsonLoaderService", e);
+        if (startupMaintenance) {
+            detectionMigrationService.alignIdSequence();
+            detectionMigrationService.migrateLegacyJsonColumns();
         }
+        loadStoreFromDatabase();
+        loadJsonDataOnStartup();
+    }
+    
+    /**
+     * Fills the in-memory store with the detections already persisted, so the
+     * analysis endpoints see the full history without querying the database.
+     * Rows are read in id order, one keyset page at a time, which keeps the
+     * store's row order (and so its cursors) stable across restarts.
+     */
+    public void loadStoreFromDatabase() {
+        int pageSize = detectionBatchWriter.getBatchSize();
+        // Detections stored before the rollup table existed are folded in once
+        boolean backfillRollups = rollupService.isEmpty();
+        long lastId = 0L;
+        int loaded = 0;
+        List<Long> ids;
+        do {
+            ids = detectionRepository.findIdsAfter(lastId, PageRequest.of(0, pageSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<DetectionDto> detections = detectionRepository.findAllWithLaneMetricsByIdIn(ids).stream()
+                    .map(detectionMapper::toDto)
+                    .collect(Collectors.toList());
+            if (backfillRollups) {
+                rollupService.record(detections);
+            }
+            publish(detections);
+            loaded += detections.size();
+            lastId = ids.get(ids.size() - 1);
+        } while (ids.size() == pageSize);
+        log.info("Loaded {} stored detections into memory", loaded);
+        
+        highWaterMark = detectionRepository.findTopByOrderByDateDescTimestampMsDesc()
+                .map(latest -> new IngestMark(latest.getDate(), latest.getTimestampMs()))
+                .orElse(null);
     }
     
-    @Transactional
     public void loadJsonDataOnStartup() {
         try {
-            File jsonFile = new File(DETECTION_FILE_PATH);
+            File jsonFile = getDetectionFile();
             if (jsonFile.exists()) {
-                log.info("Loading initial data from JSON file: {}", DETECTION_FILE_PATH);
+                log.info("Loading initial data from JSON file: {}", jsonFile);
                 loadAndSaveDetections(jsonFile);
             } else {
-                log.warn("JSON file does not exist at path: {}", DETECTION_FILE_PATH);
+                log.warn("JSON file does not exist at path: {}", jsonFile);
             }
         } catch (Exception e) {
             log.error("Error loading initial JSON data", e);
         }
     }
     
-    private void startFileWatcher() {
-        new Thread(() -> {
-            try {
-                log.info("Starting file watcher for: {}", DETECTION_FILE_PATH);
-                Path path = Paths.get(DETECTION_FILE_PATH).getParent();
-                WatchService watchService = FileSystems.getDefault().newWatchService();
-                path.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
-                
-                while (true) {
-                    WatchKey key = watchService.take();
-                    for (WatchEvent<?> event : key.pollEvents()) {
-                        Path changed = (Path) event.context();
-                        if (changed.getFileName().toString().equals("detections.json")) {
-                            log.info("Detected change in detections.json file");
-                            File jsonFile = new File(DETECTION_FILE_PATH);
-                            loadAndSaveDetections(jsonFile);
-                        }
-                    }
-                    key.reset();
+    @Override
+    public File getDetectionFile() {
+        return new File(detectionFilePath);
+    }
+    
+    /**
+     * Stores the detections of the file that are newer than the high-water mark.
+     * Detections already ingested are skipped, so calling it again for the same
+     * file content does not create duplicates.
+     * <p>
+     * The file is read with the streaming parser: detections are bound one at a
+     * time and flushed every {@code traffic.ingest.batch-size} detections, so
+     * memory use does not grow with the file size.
+     * <p>
+     * Not transactional on purpose: every chunk commits on its own, and is only
+     * published (and the high-water mark advanced) after its commit, so a
+     * failure later in the file never leaves rows in memory that the database
+     * rolled back.
+     */
+    @Override
+    public synchronized void loadAndSaveDetections(File jsonFile) throws IOException {
+        if (!jsonFile.exists()) {
+            log.debug("File not present (yet): {}", jsonFile);
+            return;
+        }
+        if (jsonFile.lastModified() == lastFileModified && jsonFile.length() == lastFileLength) {
+            log.debug("Skipping unchanged file: {}", jsonFile);
+            return;
+        }
+        long modified = jsonFile.lastModified();
+        long length = jsonFile.length();
+        
+        IngestMark startMark = highWaterMark;
+        int batchSize = detectionBatchWriter.getBatchSize();
+        List<DetectionDto> batch = new ArrayList<>(batchSize);
+        int read = 0;
+        int saved = 0;
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonFile)) {
+            if (!moveToDetectionsArray(parser)) {
+                log.warn("No '{}' array found in {}", DETECTIONS_FIELD, jsonFile);
+                return;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                DetectionDto dto = objectMapper.readValue(parser, DetectionDto.class);
+                read++;
+                if (!IngestMark.of(dto).isAfter(startMark)) {
+                    continue;
+                }
+                batch.add(dto);
+                if (batch.size() == batchSize) {
+                    saved += saveBatch(batch);
                 }
-            } catch (Exception e) {
-                log.error("Error in file watcher", e);
             }
-        }).start();
+        } catch (JsonProcessingException e) {
+            meterRegistry.counter("traffic.ingest.parse.failures", "source", "detections-file").increment();
+            throw e;
+        }
+        saved += saveBatch(batch);
+        lastFileModified = modified;
+        lastFileLength = length;
+        
+        if (saved == 0) {
+            log.info("No new detections in {}", jsonFile);
+        } else {
+            log.info("Saved {} new detections to database ({} already stored)", saved, read - saved);
+        }
     }
     
-    @Transactional
-    public void loadAndSaveDetections(File jsonFile) throws IOException {
-        DetectionsWrapper wrapper = objectMapper.readValue(jsonFile, DetectionsWrapper.class);
-        
-        List<Detection> detections = wrapper.getDetections().stream()
-                .map(this::convertDtoToEntity)
+    /**
+     * Stores detections pushed through the ingest API. They are expected in
+     * detector order; any that are not newer than the last stored detection
+     * (re-sent or out of order) are skipped.
+     *
+     * @return the number of detections stored
+     */
+    public synchronized int ingest(List<DetectionDto> detections) {
+        IngestMark mark = highWaterMark;
+        List<DetectionDto> batch = new ArrayList<>(detections.size());
+        for (DetectionDto dto : detections) {
+            IngestMark next = IngestMark.of(dto);
+            if (next.isAfter(mark)) {
+                batch.add(dto);
+                mark = next;
+            }
+        }
+        return saveBatch(batch);
+    }
+    
+    /**
+     * Makes persisted detections visible to the analysis endpoints: appends
+     * them to the store and the recent-detections buffer, updates the running
+     * aggregates and the time index, bumps the data version so cached results
+     * are recomputed and notifies listeners.
+     */
+    private void publish(List<DetectionDto> detections) {
+        int firstRow = detectionStore.appendAll(detections);
+        detectionRingBuffer.append(firstRow, detections.size());
+        detectionAggregates.accept(detections);
+        timeBucketIndex.accept(detections);
+        long version = dataVersion.increment();
+        eventPublisher.publishEvent(new DetectionsIngestedEvent(version, List.copyOf(detections)));
+    }
+    
+    static boolean moveToDetectionsArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (DETECTIONS_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+    
+    private int saveBatch(List<DetectionDto> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        batchSizeSummary.record(batch.size());
+        int batchSize = detectionBatchWriter.getBatchSize();
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            saveChunk(batch.subList(from, Math.min(from + batchSize, batch.size())));
+        }
+        int saved = batch.size();
+        batch.clear();
+        return saved;
+    }
+    
+    /**
+     * Writes one chunk and its rollup deltas in one transaction; everything
+     * else derived from it (in-memory views, listeners, the high-water mark)
+     * is only updated once they are committed. A failed chunk leaves nothing
+     * behind, so the next load inserts it again.
+     */
+    private void saveChunk(List<DetectionDto> chunk) {
+        List<Detection> detections = chunk.stream()
+                .map(detectionMapper::toEntity)
                 .collect(Collectors.toList());
-        
-        detectionRepository.saveAll(detections);
-        log.info("Saved {} detections to database", detections.size());
+        detectionBatchWriter.write(detections, () -> rollupService.recordInTransaction(chunk));
+        publish(chunk);
+        for (DetectionDto dto : chunk) {
+            IngestMark mark = IngestMark.of(dto);
+            if (mark.isAfter(highWaterMark)) {
+                highWaterMark = mark;
+            }
+        }
     }
     
-    private Detection convertDtoToEntity(DetectionDto dto) {
-        try {
-            return Detection.builder()
-                    .timestampMs(dto.getTimestamp_ms())
-                    .date(dto.getDate())
-                    .objectsTotal(objectMapper.writeValueAsString(dto.getObjects_total()))
-                    .objectsByLane(objectMapper.writeValueAsString(dto.getObjects_by_lane()))
-                    .avgSpeedByLane(objectMapper.writeValueAsString(dto.getAvg_speed_by_lane()))
-                    .build();
-        } catch (Exception e) {
-            log.error("Error converting DTO to entity", e);
-            return new Detection();
+    /**
+     * Position of a detection in ingestion order: by date, then by the
+     * detector's relative timestamp (it restarts on every detector run).
+     */
+    private record IngestMark(String date, long timestampMs) {
+        
+        static IngestMark of(DetectionDto dto) {
+            return new IngestMark(dto.getDate() != null ? dto.getDate() : "",
+                    dto.getTimestamp_ms() != null ? dto.getTimestamp_ms() : 0L);
+        }
+        
+        boolean isAfter(IngestMark other) {
+            if (other == null) {
+                return true;
+            }
+            int byDate = date.compareTo(other.date);
+            return byDate > 0 || (byDate == 0 && timestampMs > other.timestampMs);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.RollupGranularity;
+import com.trafficanalysis.model.TrafficRollup;
+import com.trafficanalysis.repository.TrafficRollupRepository;
+import com.trafficanalysis.store.DetectionStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Maintains the {@code traffic_rollup} table: hour-of-day and day-of-week
+ * profiles by lane and vehicle class. Each ingested batch is folded into one
+ * delta per bucket and applied as a batched upsert, so reads never depend on
+ * the amount of history. Time ranges are served in memory by
+ * {@link com.trafficanalysis.store.TimeBucketIndex}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupService {
+
+    private static final String UPSERT_SQL = "INSERT INTO traffic_rollup (granularity, bucket, lane, vehicle_class, vehicle_count) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE vehicle_count = vehicle_count + VALUES(vehicle_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TrafficRollupRepository trafficRollupRepository;
+    private final DatabaseLimiter databaseLimiter;
+
+    public boolean isEmpty() {
+        return trafficRollupRepository.count() == 0;
+    }
+
+    /**
+     * Adds the detections to the rollups in a transaction of their own.
+     */
+    public void record(List<DetectionDto> detections) {
+        List<Object[]> rows = deltaRows(detections);
+        if (!rows.isEmpty()) {
+            databaseLimiter.runBlocking(() -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+            log.debug("Updated {} rollup buckets for {} detections", rows.size(), detections.size());
+        }
+    }
+
+    /**
+     * Adds the detections to the rollups in the caller's transaction, so the
+     * deltas commit together with the detections they come from. The caller
+     * already holds a database permit.
+     */
+    public void recordInTransaction(List<DetectionDto> detections) {
+        List<Object[]> rows = deltaRows(detections);
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            log.debug("Updated {} rollup buckets for {} detections", rows.size(), detections.size());
+        }
+    }
+
+    private List<Object[]> deltaRows(List<DetectionDto> detections) {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (DetectionDto detection : detections) {
+            LocalDateTime dateTime = parseDate(detection.getDate());
+            if (dateTime == null) {
+                continue;
+            }
+            if (detection.getObjects_total() != null) {
+                addCounts(deltas, dateTime, TrafficRollup.TOTAL_LANE, detection.getObjects_total());
+            }
+            if (detection.getObjects_by_lane() != null) {
+                detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                    if (vehicles != null) {
+                        addCounts(deltas, dateTime, lane, vehicles);
+                    }
+                });
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, count) -> rows.add(new Object[]{
+                key.granularity().name(), key.bucket(), key.lane(), key.vehicleClass(), count}));
+        return rows;
+    }
+
+    /**
+     * Vehicles (all classes, all lanes) per bucket of the given granularity.
+     */
+    public Map<Long, Long> totalsByBucket(RollupGranularity granularity) {
+        Map<Long, Long> totals = new HashMap<>();
+        List<TrafficRollupRepository.BucketTotal> buckets =
+                databaseLimiter.call(() -> trafficRollupRepository.sumTotalsByBucket(granularity, TrafficRollup.TOTAL_LANE));
+        for (TrafficRollupRepository.BucketTotal total : buckets) {
+            totals.put(total.getBucket(), total.getVehicles());
+        }
+        return totals;
+    }
+
+    private void addCounts(Map<RollupKey, Long> deltas, LocalDateTime dateTime, String lane, Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            long count = entry.getValue() != null ? entry.getValue() : 0L;
+            String vehicleClass = entry.getKey();
+            deltas.merge(new RollupKey(RollupGranularity.HOUR_OF_DAY, dateTime.getHour(), lane, vehicleClass), count, Long::sum);
+            deltas.merge(new RollupKey(RollupGranularity.DAY_OF_WEEK, dateTime.getDayOfWeek().getValue(), lane, vehicleClass), count, Long::sum);
+        }
+    }
+
+    private static LocalDateTime parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(date, DetectionStore.DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record RollupKey(RollupGranularity granularity, long bucket, String lane, String vehicleClass) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.trafficanalysis.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Server-side downsampling of time series: largest-triangle-three-buckets
+ * (keeps the visual shape using real points) and fixed-width bucket
+ * aggregation (min / avg / max per bucket). Missing values are {@link Double#NaN}.
+ */
+public final class SeriesDownsampler {
+
+    public enum Mode {
+        LTTB, AVG, MIN, MAX;
+
+        public static Mode from(String value) {
+            if (value == null || value.isBlank()) {
+                return LTTB;
+            }
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * Indexes of the points kept by LTTB, ascending; always keeps the first and
+     * the last point. Returns every index when there are no more than
+     * {@code threshold} points.
+     */
+    public static int[] largestTriangleThreeBuckets(long[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n) {
+            int[] all = new int[n];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        if (threshold < 3) {
+            return n == 1 ? new int[]{0} : new int[]{0, n - 1};
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third vertex of the triangle
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            int avgCount = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += valueOrZero(y[i]);
+                avgCount++;
+            }
+            if (avgCount > 0) {
+                avgX /= avgCount;
+                avgY /= avgCount;
+            } else {
+                avgX = x[n - 1];
+                avgY = valueOrZero(y[n - 1]);
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double pointX = x[a];
+            double pointY = valueOrZero(y[a]);
+            double maxArea = -1.0;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((pointX - avgX) * (valueOrZero(y[i]) - pointY)
+                        - (pointX - x[i]) * (avgY - pointY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[count++] = chosen;
+            a = chosen;
+        }
+
+        selected[count++] = n - 1;
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Splits the points into at most {@code buckets} buckets of equal width
+     * over {@code x} (which must be ascending). Returns the start offset of each
+     * non-empty bucket followed by {@code x.length}, so bucket {@code i} covers
+     * {@code [bounds[i], bounds[i + 1])}.
+     */
+    public static int[] fixedBuckets(long[] x, int buckets) {
+        int n = x.length;
+        if (n == 0) {
+            return new int[]{0};
+        }
+        double span = (double) x[n - 1] - x[0] + 1.0;
+        int[] bounds = new int[Math.min(buckets, n) + 1];
+        int count = 0;
+        int previousBucket = -1;
+        for (int i = 0; i < n; i++) {
+            int bucket = (int) Math.min(buckets - 1, (long) (((double) x[i] - x[0]) * buckets / span));
+            if (bucket != previousBucket && count < bounds.length - 1) {
+                bounds[count++] = i;
+                previousBucket = bucket;
+            }
+        }
+        bounds[count++] = n;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Aggregates {@code values[from, to)} ignoring NaN; NaN when every value is missing.
+     */
+    public static double aggregate(double[] values, int from, int to, Mode mode) {
+        double result = Double.NaN;
+        double sum = 0.0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            count++;
+            sum += value;
+            if (mode == Mode.MIN) {
+                result = Double.isNaN(result) ? value : Math.min(result, value);
+            } else if (mode == Mode.MAX) {
+                result = Double.isNaN(result) ? value : Math.max(result, value);
+            }
+        }
+        if (mode == Mode.AVG || mode == Mode.LTTB) {
+            return count > 0 ? sum / count : Double.NaN;
+        }
+        return result;
+    }
+
+    private static double valueOrZero(double value) {
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+}
@@ -0,0 +1,24 @@
+package com.trafficanalysis.store;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing version of the detection data, bumped after each
+ * successful ingest. Anything derived from the detections can be stamped with
+ * it and is stale once the version moves on.
+ */
+@Component
+public class DataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,114 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.SpeedStatsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Running aggregates over every ingested detection: totals per vehicle class,
+ * speed statistics per lane ({@link RunningStats} with a histogram for
+ * percentiles) and the most recent per-lane volume. They are updated as
+ * detections arrive in constant memory per lane, so reading them does not
+ * depend on the size of the history.
+ */
+@Component
+public class DetectionAggregates {
+
+    private final Map<String, Long> totalsByClass = new HashMap<>();
+    private final Map<String, RunningStats> speedByLane = new HashMap<>();
+    private final double speedHistogramMax;
+    private final double speedHistogramBinWidth;
+
+    // Position of the latest detection: by date, then by the detector's
+    // relative timestamp (it restarts on every detector run)
+    private String latestDate;
+    private long latestTimestampMs;
+    private Map<String, Map<String, Integer>> latestVolumeByLane = Collections.emptyMap();
+
+    public DetectionAggregates(@Value("${traffic.speed.histogram.max:250}") double speedHistogramMax,
+                               @Value("${traffic.speed.histogram.bin-width:0.5}") double speedHistogramBinWidth) {
+        this.speedHistogramMax = speedHistogramMax;
+        this.speedHistogramBinWidth = speedHistogramBinWidth;
+    }
+
+    public synchronized void accept(Collection<DetectionDto> detections) {
+        for (DetectionDto detection : detections) {
+            if (detection.getObjects_total() != null) {
+                for (Map.Entry<String, Integer> entry : detection.getObjects_total().entrySet()) {
+                    long count = entry.getValue() != null ? entry.getValue() : 0L;
+                    totalsByClass.merge(entry.getKey(), count, Long::sum);
+                }
+            }
+
+            if (detection.getAvg_speed_by_lane() != null) {
+                for (Map.Entry<String, Double> entry : detection.getAvg_speed_by_lane().entrySet()) {
+                    if (entry.getValue() != null) {
+                        speedByLane.computeIfAbsent(entry.getKey(), lane -> newSpeedStats()).accept(entry.getValue());
+                    }
+                }
+            }
+
+            String date = detection.getDate() != null ? detection.getDate() : "";
+            long timestampMs = detection.getTimestamp_ms() != null ? detection.getTimestamp_ms() : 0L;
+            int byDate = latestDate != null ? date.compareTo(latestDate) : 1;
+            if (byDate > 0 || (byDate == 0 && timestampMs >= latestTimestampMs)) {
+                latestDate = date;
+                latestTimestampMs = timestampMs;
+                latestVolumeByLane = copyOf(detection.getObjects_by_lane());
+            }
+        }
+    }
+
+    public synchronized Map<String, Long> getTotalsByClass() {
+        return new HashMap<>(totalsByClass);
+    }
+
+    public synchronized Map<String, Double> getAvgSpeedByLane() {
+        Map<String, Double> averages = new HashMap<>();
+        speedByLane.forEach((lane, stats) -> averages.put(lane, stats.getMean()));
+        return averages;
+    }
+
+    public synchronized Map<String, SpeedStatsDto> getSpeedStatsByLane() {
+        Map<String, SpeedStatsDto> byLane = new HashMap<>();
+        speedByLane.forEach((lane, stats) -> byLane.put(lane, SpeedStatsDto.builder()
+                .count(stats.getCount())
+                .mean(stats.getMean())
+                .min(stats.getMin())
+                .max(stats.getMax())
+                .stdDev(stats.getStdDev())
+                .p50(stats.quantile(0.50))
+                .p90(stats.quantile(0.90))
+                .p95(stats.quantile(0.95))
+                .p99(stats.quantile(0.99))
+                .build()));
+        return byLane;
+    }
+
+    /**
+     * Per-lane volume of the latest detection, ordered by (date, timestampMs).
+     */
+    public synchronized Map<String, Map<String, Integer>> getLatestVolumeByLane() {
+        return latestVolumeByLane;
+    }
+
+    private RunningStats newSpeedStats() {
+        return new RunningStats(new HistogramSketch(0.0, speedHistogramMax, speedHistogramBinWidth));
+    }
+
+    private static Map<String, Map<String, Integer>> copyOf(Map<String, Map<String, Integer>> byLane) {
+        if (byLane == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, Integer>> copy = new HashMap<>();
+        byLane.forEach((lane, vehicles) -> {
+            if (vehicles != null) {
+                copy.put(lane, Collections.unmodifiableMap(new HashMap<>(vehicles)));
+            }
+        });
+        return Collections.unmodifiableMap(copy);
+    }
+}
@@ -0,0 +1,70 @@
+package com.trafficanalysis.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed-capacity circular buffer of the most recent detections, holding
+ * their {@link DetectionStore} row indexes ({@code traffic.structures.capacity}
+ * of them). Appending overwrites the oldest slot, so it never allocates after
+ * startup, and it doubles as a bounded deque: {@link #head} reads from the
+ * oldest end (queue front) and {@link #tail} from the newest end (stack top).
+ * Reads cost O(n) for the n rows requested.
+ */
+@Component
+public class DetectionRingBuffer {
+
+    private final int[] rows;
+    // Total rows ever appended; the next slot is written % capacity
+    private long written;
+
+    public DetectionRingBuffer(@Value("${traffic.structures.capacity:1024}") int capacity) {
+        this.rows = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Records the store rows [firstRow, firstRow + count) as the newest entries.
+     */
+    public synchronized void append(int firstRow, int count) {
+        // Only the last `capacity` rows of a large batch survive
+        int skip = Math.max(0, count - rows.length);
+        written += skip;
+        for (int i = skip; i < count; i++) {
+            rows[(int) (written++ % rows.length)] = firstRow + i;
+        }
+    }
+
+    public int capacity() {
+        return rows.length;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(written, rows.length);
+    }
+
+    /**
+     * Up to {@code n} of the oldest retained rows, oldest first.
+     */
+    public synchronized int[] head(int n) {
+        int size = size();
+        int count = Math.max(0, Math.min(n, size));
+        long start = written - size;
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = rows[(int) ((start + i) % rows.length)];
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code n} of the newest rows, newest first.
+     */
+    public synchronized int[] tail(int n) {
+        int count = Math.max(0, Math.min(n, size()));
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = rows[(int) ((written - 1 - i) % rows.length)];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,468 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only, column oriented in-memory copy of every detection.
+ * <p>
+ * Each detection is a row; values live in primitive arrays (one per column) so
+ * the analysis endpoints can scan the whole history without going back to the
+ * database or parsing JSON. Vehicle classes and lanes are dictionary encoded,
+ * a missing per-lane speed is stored as {@link Float#NaN} and a missing count as 0.
+ * <p>
+ * Readers work on a {@link Snapshot}: rows are never modified once written and
+ * arrays are only replaced by larger copies, so a snapshot stays consistent
+ * without holding any lock while it is scanned.
+ */
+@Component
+@Slf4j
+public class DetectionStore {
+
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final long UNKNOWN_DATE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] timestampMs = new long[INITIAL_CAPACITY];
+    private long[] dateSeconds = new long[INITIAL_CAPACITY];
+    // Dates that could not be parsed keep their raw value, indexed by row
+    private final Map<Integer, String> rawDates = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+    // Indexed by class id; null when the class never appeared in objects_total
+    private final List<int[]> classCounts = new ArrayList<>();
+
+    private final Map<String, Integer> laneIds = new HashMap<>();
+    private final List<String> laneNames = new ArrayList<>();
+    // Indexed by lane id; null when the lane never reported a speed
+    private final List<float[]> laneSpeeds = new ArrayList<>();
+    // Indexed by lane id then class id; null when the pair never appeared
+    private final List<List<int[]>> laneClassCounts = new ArrayList<>();
+
+    private int[] sortedOrder = new int[0];
+
+    public void append(DetectionDto detection) {
+        appendAll(Collections.singletonList(detection));
+    }
+
+    /**
+     * Appends the detections in order.
+     *
+     * @return the row index of the first appended detection
+     */
+    public int appendAll(Collection<DetectionDto> detections) {
+        lock.writeLock().lock();
+        try {
+            int firstRow = size;
+            if (detections.isEmpty()) {
+                return firstRow;
+            }
+            ensureCapacity(size + detections.size());
+            for (DetectionDto detection : detections) {
+                appendRow(detection);
+            }
+            return firstRow;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Snapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            int[][] classColumns = classCounts.toArray(new int[0][]);
+            float[][] speedColumns = laneSpeeds.toArray(new float[0][]);
+            int[][][] laneClassColumns = new int[laneClassCounts.size()][][];
+            for (int lane = 0; lane < laneClassColumns.length; lane++) {
+                laneClassColumns[lane] = laneClassCounts.get(lane).toArray(new int[0][]);
+            }
+            return new Snapshot(size, timestampMs, dateSeconds,
+                    List.copyOf(classNames), classColumns,
+                    List.copyOf(laneNames), speedColumns, laneClassColumns);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void appendRow(DetectionDto detection) {
+        int row = size;
+        timestampMs[row] = detection.getTimestamp_ms() != null ? detection.getTimestamp_ms() : 0L;
+        dateSeconds[row] = parseDate(detection.getDate());
+        if (dateSeconds[row] == UNKNOWN_DATE && detection.getDate() != null) {
+            rawDates.put(row, detection.getDate());
+        }
+
+        if (detection.getObjects_total() != null) {
+            for (Map.Entry<String, Integer> entry : detection.getObjects_total().entrySet()) {
+                int classId = classId(entry.getKey());
+                int[] column = classCounts.get(classId);
+                if (column == null) {
+                    column = new int[timestampMs.length];
+                    classCounts.set(classId, column);
+                }
+                column[row] = entry.getValue() != null ? entry.getValue() : 0;
+            }
+        }
+
+        if (detection.getObjects_by_lane() != null) {
+            for (Map.Entry<String, Map<String, Integer>> laneEntry : detection.getObjects_by_lane().entrySet()) {
+                if (laneEntry.getValue() == null) {
+                    continue;
+                }
+                List<int[]> laneColumns = laneClassCounts.get(laneId(laneEntry.getKey()));
+                for (Map.Entry<String, Integer> entry : laneEntry.getValue().entrySet()) {
+                    int classId = classId(entry.getKey());
+                    while (laneColumns.size() <= classId) {
+                        laneColumns.add(null);
+                    }
+                    int[] column = laneColumns.get(classId);
+                    if (column == null) {
+                        column = new int[timestampMs.length];
+                        laneColumns.set(classId, column);
+                    }
+                    column[row] = entry.getValue() != null ? entry.getValue() : 0;
+                }
+            }
+        }
+
+        if (detection.getAvg_speed_by_lane() != null) {
+            for (Map.Entry<String, Double> entry : detection.getAvg_speed_by_lane().entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                int laneId = laneId(entry.getKey());
+                float[] column = laneSpeeds.get(laneId);
+                if (column == null) {
+                    column = new float[timestampMs.length];
+                    Arrays.fill(column, Float.NaN);
+                    laneSpeeds.set(laneId, column);
+                }
+                column[row] = entry.getValue().floatValue();
+            }
+        }
+
+        size++;
+    }
+
+    private int classId(String name) {
+        Integer id = classIds.get(name);
+        if (id == null) {
+            id = classNames.size();
+            classIds.put(name, id);
+            classNames.add(name);
+            classCounts.add(null);
+        }
+        return id;
+    }
+
+    private int laneId(String name) {
+        Integer id = laneIds.get(name);
+        if (id == null) {
+            id = laneNames.size();
+            laneIds.put(name, id);
+            laneNames.add(name);
+            laneSpeeds.add(null);
+            laneClassCounts.add(new ArrayList<>());
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= timestampMs.length) {
+            return;
+        }
+        int capacity = Math.max(required, timestampMs.length + (timestampMs.length >> 1));
+        timestampMs = Arrays.copyOf(timestampMs, capacity);
+        dateSeconds = Arrays.copyOf(dateSeconds, capacity);
+        classCounts.replaceAll(column -> column != null ? Arrays.copyOf(column, capacity) : null);
+        laneSpeeds.replaceAll(column -> {
+            if (column == null) {
+                return null;
+            }
+            float[] grown = Arrays.copyOf(column, capacity);
+            Arrays.fill(grown, column.length, capacity, Float.NaN);
+            return grown;
+        });
+        for (List<int[]> laneColumns : laneClassCounts) {
+            laneColumns.replaceAll(column -> column != null ? Arrays.copyOf(column, capacity) : null);
+        }
+    }
+
+    /**
+     * Row indexes ordered by {@code timestampMs} (ties keep insertion order).
+     * The order is cached and only the rows appended since the last call are
+     * sorted and merged in.
+     */
+    private synchronized int[] sortedOrder(int rows, long[] timestamps) {
+        int sorted = sortedOrder.length;
+        if (sorted >= rows) {
+            return sortedOrder;
+        }
+        int[] tail = new int[rows - sorted];
+        for (int i = 0; i < tail.length; i++) {
+            tail[i] = sorted + i;
+        }
+        tail = sortByTimestamp(tail, timestamps);
+
+        int[] merged = new int[rows];
+        System.arraycopy(sortedOrder, 0, merged, 0, sorted);
+        System.arraycopy(tail, 0, merged, sorted, tail.length);
+        int[] order = new int[rows];
+        merge(merged, 0, sorted, rows, timestamps, order);
+        sortedOrder = order;
+        return order;
+    }
+
+    /**
+     * Stable sort of row indexes by timestamp without boxing. Each detector
+     * run appends an ascending run of timestamps, so the runs are found first
+     * and merged pairwise: linear when the rows are already in order and
+     * O(n log runs) otherwise.
+     */
+    static int[] sortByTimestamp(int[] rows, long[] timestamps) {
+        int n = rows.length;
+        // Start of every ascending run, followed by n
+        int[] bounds = new int[n + 1];
+        int runs = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || timestamps[rows[i]] < timestamps[rows[i - 1]]) {
+                bounds[runs++] = i;
+            }
+        }
+        bounds[runs] = n;
+
+        int[] source = rows;
+        int[] target = new int[n];
+        while (runs > 1) {
+            int merged = 0;
+            for (int run = 0; run < runs; run += 2) {
+                int low = bounds[run];
+                int middle = bounds[Math.min(run + 1, runs)];
+                int high = bounds[Math.min(run + 2, runs)];
+                merge(source, low, middle, high, timestamps, target);
+                bounds[merged++] = low;
+            }
+            bounds[merged] = n;
+            runs = merged;
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    // Merges the sorted ranges [low, middle) and [middle, high) of source into target
+    private static void merge(int[] source, int low, int middle, int high, long[] timestamps, int[] target) {
+        int i = low;
+        int j = middle;
+        int k = low;
+        while (i < middle && j < high) {
+            target[k++] = timestamps[source[i]] <= timestamps[source[j]] ? source[i++] : source[j++];
+        }
+        while (i < middle) {
+            target[k++] = source[i++];
+        }
+        while (j < high) {
+            target[k++] = source[j++];
+        }
+    }
+
+    static long parseDate(String date) {
+        if (date == null) {
+            return UNKNOWN_DATE;
+        }
+        try {
+            return LocalDateTime.parse(date, DATE_FORMAT).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            log.warn("Unparseable detection date: {}", date);
+            return UNKNOWN_DATE;
+        }
+    }
+
+    /**
+     * Immutable view over the first {@link #size()} rows of the store.
+     */
+    public final class Snapshot {
+
+        private final int size;
+        private final long[] timestampMs;
+        private final long[] dateSeconds;
+        private final List<String> classNames;
+        private final int[][] classCounts;
+        private final List<String> laneNames;
+        private final float[][] laneSpeeds;
+        private final int[][][] laneClassCounts;
+
+        private Snapshot(int size, long[] timestampMs, long[] dateSeconds,
+                         List<String> classNames, int[][] classCounts,
+                         List<String> laneNames, float[][] laneSpeeds, int[][][] laneClassCounts) {
+            this.size = size;
+            this.timestampMs = timestampMs;
+            this.dateSeconds = dateSeconds;
+            this.classNames = classNames;
+            this.classCounts = classCounts;
+            this.laneNames = laneNames;
+            this.laneSpeeds = laneSpeeds;
+            this.laneClassCounts = laneClassCounts;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public long timestampMs(int row) {
+            return timestampMs[row];
+        }
+
+        /**
+         * Date of the row as epoch seconds (local time taken as UTC), or
+         * {@link DetectionStore#UNKNOWN_DATE} when it could not be parsed.
+         */
+        public long dateSeconds(int row) {
+            return dateSeconds[row];
+        }
+
+        public String date(int row) {
+            long seconds = dateSeconds[row];
+            if (seconds == UNKNOWN_DATE) {
+                return rawDates.get(row);
+            }
+            return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC).format(DATE_FORMAT);
+        }
+
+        /**
+         * Hour of day (0-23) of the row, or -1 when its date is unknown.
+         */
+        public int hourOfDay(int row) {
+            long seconds = dateSeconds[row];
+            return seconds == UNKNOWN_DATE ? -1 : (int) Math.floorMod(Math.floorDiv(seconds, 3600), 24L);
+        }
+
+        public List<String> vehicleClasses() {
+            return classNames;
+        }
+
+        public int classId(String vehicleClass) {
+            return classNames.indexOf(vehicleClass);
+        }
+
+        /**
+         * Whether the class appeared in at least one {@code objects_total} map.
+         */
+        public boolean hasTotal(int classId) {
+            return classId >= 0 && classCounts[classId] != null;
+        }
+
+        public int total(int row, int classId) {
+            int[] column = classId >= 0 ? classCounts[classId] : null;
+            return column != null ? column[row] : 0;
+        }
+
+        public List<String> lanes() {
+            return laneNames;
+        }
+
+        public int laneId(String lane) {
+            return laneNames.indexOf(lane);
+        }
+
+        /**
+         * Average speed of the lane for the row, {@link Float#NaN} when not reported.
+         */
+        public float laneSpeed(int row, int laneId) {
+            float[] column = laneId >= 0 ? laneSpeeds[laneId] : null;
+            return column != null ? column[row] : Float.NaN;
+        }
+
+        public int laneCount(int row, int laneId, int classId) {
+            if (laneId < 0 || classId < 0) {
+                return 0;
+            }
+            int[][] laneColumns = laneClassCounts[laneId];
+            int[] column = classId < laneColumns.length ? laneColumns[classId] : null;
+            return column != null ? column[row] : 0;
+        }
+
+        /**
+         * Rows ordered by {@code timestampMs} with a timestamp in [from, to] that come
+         * strictly after the keyset position (afterTimestampMs, afterRow), at most
+         * {@code limit} of them. The start is found by binary search, so deep pages
+         * cost the same as the first one.
+         */
+        public int[] rangeByTimestamp(long from, long to, long afterTimestampMs, int afterRow, int limit) {
+            int[] order = sortedByTimestamp();
+            long startTimestamp = from;
+            int startRow = -1;
+            if (afterTimestampMs > from || (afterTimestampMs == from && afterRow > startRow)) {
+                startTimestamp = afterTimestampMs;
+                startRow = afterRow;
+            }
+
+            // First position whose (timestamp, row) is greater than the start key
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                long timestamp = timestampMs[order[mid]];
+                if (timestamp < startTimestamp || (timestamp == startTimestamp && order[mid] <= startRow)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            int end = low;
+            while (end < order.length && end - low < limit && timestampMs[order[end]] <= to) {
+                end++;
+            }
+            return Arrays.copyOfRange(order, low, end);
+        }
+
+        /**
+         * Row indexes ordered by {@code timestampMs}, ascending.
+         */
+        public int[] sortedByTimestamp() {
+            int[] order = sortedOrder(size, timestampMs);
+            if (order.length == size) {
+                return order;
+            }
+            // A newer snapshot already extended the order; keep only our rows
+            int[] visible = new int[size];
+            int k = 0;
+            for (int row : order) {
+                if (row < size) {
+                    visible[k++] = row;
+                }
+            }
+            return visible;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.trafficanalysis.store;
+
+/**
+ * Fixed-width histogram over [lowest, highest) for approximate quantiles in
+ * constant memory. Values outside the range are counted in the first or last
+ * bin, so quantiles are exact to within one bin width inside the range and
+ * clamped outside it.
+ */
+public class HistogramSketch {
+
+    private final double lowest;
+    private final double binWidth;
+    private final long[] bins;
+    private long count;
+
+    public HistogramSketch(double lowest, double highest, double binWidth) {
+        if (!(highest > lowest) || !(binWidth > 0)) {
+            throw new IllegalArgumentException("Invalid histogram range");
+        }
+        this.lowest = lowest;
+        this.binWidth = binWidth;
+        this.bins = new long[(int) Math.ceil((highest - lowest) / binWidth)];
+    }
+
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int bin = (int) Math.floor((value - lowest) / binWidth);
+        bins[Math.max(0, Math.min(bins.length - 1, bin))]++;
+        count++;
+    }
+
+    public void merge(HistogramSketch other) {
+        if (other.bins.length != bins.length || other.lowest != lowest || other.binWidth != binWidth) {
+            throw new IllegalArgumentException("Histograms have different bins");
+        }
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] += other.bins[i];
+        }
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Value below which a fraction {@code q} (0-1) of the values fall, interpolated
+     * linearly within its bin; NaN when empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = Math.max(0.0, Math.min(1.0, q)) * count;
+        long seen = 0;
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i] > 0 && seen + bins[i] >= rank) {
+                double within = (rank - seen) / bins[i];
+                return lowest + (i + within) * binWidth;
+            }
+            seen += bins[i];
+        }
+        return lowest + bins.length * binWidth;
+    }
+}
@@ -0,0 +1,207 @@
+package com.trafficanalysis.store;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Full scans over a {@link DetectionStore.Snapshot} for the cases the running
+ * aggregates and rollups cannot answer (ad-hoc time ranges).
+ * <p>
+ * The rows are split into chunks of {@code traffic.analysis.scan-chunk} that
+ * are aggregated in parallel on a dedicated fork-join pool. Each chunk fills
+ * primitive arrays indexed by class and lane id, and results are merged by
+ * adding the arrays, so nothing is boxed or shared between workers.
+ */
+@Component
+public class ParallelAggregator {
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelAggregator(@Value("${traffic.analysis.parallelism:0}") int parallelism,
+                              @Value("${traffic.analysis.scan-chunk:65536}") int chunkSize) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Aggregates every row of the snapshot.
+     */
+    public Result aggregate(DetectionStore.Snapshot snapshot) {
+        return pool.invoke(new ScanTask(snapshot, null, 0, snapshot.size()));
+    }
+
+    /**
+     * Aggregates the given rows of the snapshot.
+     */
+    public Result aggregate(DetectionStore.Snapshot snapshot, int[] rows) {
+        return pool.invoke(new ScanTask(snapshot, rows, 0, rows.length));
+    }
+
+    private final class ScanTask extends RecursiveTask<Result> {
+
+        private final DetectionStore.Snapshot snapshot;
+        // Row indexes to scan, or null to scan rows [from, to) directly
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        ScanTask(DetectionStore.Snapshot snapshot, int[] rows, int from, int to) {
+            this.snapshot = snapshot;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= chunkSize) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask right = new ScanTask(snapshot, rows, mid, to);
+            right.fork();
+            Result left = new ScanTask(snapshot, rows, from, mid).compute();
+            return left.merge(right.join());
+        }
+
+        private Result scan() {
+            int classes = snapshot.vehicleClasses().size();
+            int lanes = snapshot.lanes().size();
+            Result result = new Result(snapshot.vehicleClasses(), snapshot.lanes());
+            for (int i = from; i < to; i++) {
+                int row = rows != null ? rows[i] : i;
+                long vehicles = 0;
+                for (int classId = 0; classId < classes; classId++) {
+                    int count = snapshot.total(row, classId);
+                    result.totals[classId] += count;
+                    vehicles += count;
+                }
+                for (int laneId = 0; laneId < lanes; laneId++) {
+                    float speed = snapshot.laneSpeed(row, laneId);
+                    if (!Float.isNaN(speed)) {
+                        result.speedSums[laneId] += speed;
+                        result.speedCounts[laneId]++;
+                    }
+                }
+                long seconds = snapshot.dateSeconds(row);
+                if (seconds != DetectionStore.UNKNOWN_DATE) {
+                    long epochDay = Math.floorDiv(seconds, 86_400L);
+                    result.byHourOfDay[(int) Math.floorMod(Math.floorDiv(seconds, 3_600L), 24L)] += vehicles;
+                    // 1970-01-01 was a Thursday; ISO day of week, Monday = 1
+                    result.byDayOfWeek[(int) Math.floorMod(epochDay + 3, 7L) + 1] += vehicles;
+                }
+            }
+            result.rows = to - from;
+            return result;
+        }
+    }
+
+    /**
+     * Mergeable sums of one scan. Arrays are indexed by the snapshot's class and
+     * lane ids; {@code byDayOfWeek} by ISO day (1 = Monday, index 0 unused).
+     */
+    public static final class Result {
+
+        private final List<String> vehicleClasses;
+        private final List<String> lanes;
+        private final long[] totals;
+        private final double[] speedSums;
+        private final long[] speedCounts;
+        private final long[] byHourOfDay = new long[24];
+        private final long[] byDayOfWeek = new long[8];
+        private long rows;
+
+        private Result(List<String> vehicleClasses, List<String> lanes) {
+            this.vehicleClasses = vehicleClasses;
+            this.lanes = lanes;
+            this.totals = new long[vehicleClasses.size()];
+            this.speedSums = new double[lanes.size()];
+            this.speedCounts = new long[lanes.size()];
+        }
+
+        private Result merge(Result other) {
+            add(totals, other.totals);
+            add(speedCounts, other.speedCounts);
+            add(byHourOfDay, other.byHourOfDay);
+            add(byDayOfWeek, other.byDayOfWeek);
+            for (int i = 0; i < speedSums.length; i++) {
+                speedSums[i] += other.speedSums[i];
+            }
+            rows += other.rows;
+            return this;
+        }
+
+        private static void add(long[] into, long[] values) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += values[i];
+            }
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * Vehicles per class, for classes seen in the scanned rows.
+         */
+        public Map<String, Long> totalsByClass() {
+            Map<String, Long> byClass = new HashMap<>();
+            for (int classId = 0; classId < totals.length; classId++) {
+                if (totals[classId] > 0) {
+                    byClass.put(vehicleClasses.get(classId), totals[classId]);
+                }
+            }
+            return byClass;
+        }
+
+        /**
+         * Mean reported speed per lane, for lanes with at least one report.
+         */
+        public Map<String, Double> avgSpeedByLane() {
+            Map<String, Double> averages = new HashMap<>();
+            for (int laneId = 0; laneId < speedSums.length; laneId++) {
+                if (speedCounts[laneId] > 0) {
+                    averages.put(lanes.get(laneId), speedSums[laneId] / speedCounts[laneId]);
+                }
+            }
+            return averages;
+        }
+
+        /**
+         * Vehicles per hour of day (0-23), keyed like the HOUR_OF_DAY rollup.
+         */
+        public Map<Long, Long> vehiclesByHourOfDay() {
+            return toBuckets(byHourOfDay, 0);
+        }
+
+        /**
+         * Vehicles per ISO day of week (1-7), keyed like the DAY_OF_WEEK rollup.
+         */
+        public Map<Long, Long> vehiclesByDayOfWeek() {
+            return toBuckets(byDayOfWeek, 1);
+        }
+
+        private static Map<Long, Long> toBuckets(long[] counts, int first) {
+            Map<Long, Long> buckets = new HashMap<>();
+            for (int bucket = first; bucket < counts.length; bucket++) {
+                if (counts[bucket] > 0) {
+                    buckets.put((long) bucket, counts[bucket]);
+                }
+            }
+            return buckets;
+        }
+    }
+}
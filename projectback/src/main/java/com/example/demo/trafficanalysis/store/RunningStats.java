@@ -0,0 +1,94 @@
+package com.trafficanalysis.store;
+
+/**
+ * Online count/mean/variance (Welford) with min and max, optionally feeding a
+ * {@link HistogramSketch} for percentiles. Memory does not grow with the
+ * number of values, and two instances can be merged (Chan et al.).
+ */
+public class RunningStats {
+
+    private final HistogramSketch histogram;
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public RunningStats() {
+        this(null);
+    }
+
+    public RunningStats(HistogramSketch histogram) {
+        this.histogram = histogram;
+    }
+
+    public void accept(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        if (histogram != null) {
+            histogram.accept(value);
+        }
+    }
+
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        if (histogram != null && other.histogram != null) {
+            histogram.merge(other.histogram);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Population standard deviation; NaN when empty.
+     */
+    public double getStdDev() {
+        return count > 0 ? Math.sqrt(m2 / count) : Double.NaN;
+    }
+
+    /**
+     * Approximate quantile (0-1) from the histogram, kept within [min, max];
+     * NaN without one.
+     */
+    public double quantile(double q) {
+        if (histogram == null || count == 0) {
+            return Double.NaN;
+        }
+        return Math.max(min, Math.min(max, histogram.quantile(q)));
+    }
+}
@@ -0,0 +1,257 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.TreeNodeDto;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Calendar index over detection dates: year, day, hour and minute buckets,
+ * each holding pre-aggregated detection, vehicle and speed sums for its
+ * subtree. It is updated as detections are ingested.
+ * <p>
+ * A range query adds up whole buckets and only descends at the two edges of
+ * the range, so its cost depends on the calendar fan-out at the edges, not on
+ * the number of detections. Ranges resolve to whole minutes.
+ */
+@Component
+public class TimeBucketIndex {
+
+    /**
+     * Levels below the root, with the label format of their buckets.
+     */
+    public enum Level {
+        YEAR("yyyy"),
+        DAY("yyyy-MM-dd"),
+        HOUR("yyyy-MM-dd'T'HH"),
+        MINUTE("yyyy-MM-dd'T'HH:mm");
+
+        private final DateTimeFormatter format;
+
+        Level(String pattern) {
+            this.format = DateTimeFormatter.ofPattern(pattern);
+        }
+
+        LocalDateTime start(LocalDateTime time) {
+            return switch (this) {
+                case YEAR -> time.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            };
+        }
+
+        LocalDateTime end(LocalDateTime start) {
+            return switch (this) {
+                case YEAR -> start.plusYears(1);
+                case DAY -> start.plusDays(1);
+                case HOUR -> start.plusHours(1);
+                case MINUTE -> start.plusMinutes(1);
+            };
+        }
+
+        Level child() {
+            return this == MINUTE ? null : values()[ordinal() + 1];
+        }
+    }
+
+    private final Node root = new Node(null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+    public synchronized void accept(Collection<DetectionDto> detections) {
+        for (DetectionDto detection : detections) {
+            long seconds = DetectionStore.parseDate(detection.getDate());
+            if (seconds == DetectionStore.UNKNOWN_DATE) {
+                continue;
+            }
+            long vehicles = 0;
+            if (detection.getObjects_total() != null) {
+                for (Integer count : detection.getObjects_total().values()) {
+                    vehicles += count != null ? count : 0;
+                }
+            }
+            double speedSum = 0;
+            long speedCount = 0;
+            if (detection.getAvg_speed_by_lane() != null) {
+                for (Double speed : detection.getAvg_speed_by_lane().values()) {
+                    if (speed != null) {
+                        speedSum += speed;
+                        speedCount++;
+                    }
+                }
+            }
+
+            LocalDateTime time = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+            Node node = root;
+            node.add(vehicles, speedSum, speedCount);
+            for (Level level = Level.YEAR; level != null; level = level.child()) {
+                node = node.child(level, time);
+                node.add(vehicles, speedSum, speedCount);
+            }
+        }
+    }
+
+    /**
+     * Sums over the minutes from {@code fromSeconds} to {@code toSeconds}
+     * (epoch seconds of the detection dates, both inclusive).
+     */
+    public synchronized RangeTotals sum(long fromSeconds, long toSeconds) {
+        long from = Math.floorDiv(fromSeconds, 60L) * 60L;
+        long toExclusive = Math.floorDiv(toSeconds, 60L) * 60L + 60L;
+        RangeTotals totals = new RangeTotals();
+        if (from < toExclusive) {
+            sum(root, from, toExclusive, totals);
+        }
+        return totals;
+    }
+
+    private void sum(Node node, long from, long toExclusive, RangeTotals totals) {
+        if (node.start >= from && node.end <= toExclusive) {
+            totals.add(node);
+            return;
+        }
+        if (node.end <= from || node.start >= toExclusive || node.children == null) {
+            return;
+        }
+        // The child containing `from` may start before it
+        Long first = node.children.floorKey(from);
+        for (Node child : node.children.subMap(first != null ? first : from, true, toExclusive, false).values()) {
+            sum(child, from, toExclusive, totals);
+        }
+    }
+
+    /**
+     * The index as a tree, {@code depth} levels below {@code label} (a bucket
+     * label such as {@code 2025}, {@code 2025-05-08} or {@code 2025-05-08T21};
+     * the root when null). Nodes cut off by the depth have no children but
+     * report {@code childCount}, so clients can expand them with another call.
+     *
+     * @return the subtree, or null when the bucket does not exist
+     */
+    public synchronized TreeNodeDto toTree(String label, int depth) {
+        Node node = label == null ? root : find(label);
+        return node != null ? toDto(node, Math.max(0, depth)) : null;
+    }
+
+    private Node find(String label) {
+        // Complete the label to an ISO date-time to know its level and start
+        Level target;
+        String isoTime;
+        switch (label.length()) {
+            case 4 -> { target = Level.YEAR; isoTime = label + "-01-01T00:00"; }
+            case 10 -> { target = Level.DAY; isoTime = label + "T00:00"; }
+            case 13 -> { target = Level.HOUR; isoTime = label + ":00"; }
+            case 16 -> { target = Level.MINUTE; isoTime = label; }
+            default -> { return null; }
+        }
+        LocalDateTime time;
+        try {
+            time = LocalDateTime.parse(isoTime);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        Node node = root;
+        for (Level level = Level.YEAR; node != null; level = level.child()) {
+            node = node.children.get(level.start(time).toEpochSecond(ZoneOffset.UTC));
+            if (level == target) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private TreeNodeDto toDto(Node node, int depth) {
+        List<TreeNodeDto> children = null;
+        if (depth > 0 && node.children != null) {
+            children = new ArrayList<>(node.children.size());
+            for (Node child : node.children.values()) {
+                children.add(toDto(child, depth - 1));
+            }
+        }
+        return TreeNodeDto.builder()
+                .value(node.label())
+                .count(node.count)
+                .vehicles(node.vehicles)
+                .avgSpeed(node.speedCount > 0 ? node.speedSum / node.speedCount : null)
+                .childCount(node.children != null ? node.children.size() : 0)
+                .children(children)
+                .build();
+    }
+
+    private static final class Node {
+
+        private final Level level;
+        private final long start;
+        private final long end;
+        // Keyed by bucket start (epoch seconds); null for minutes
+        private final NavigableMap<Long, Node> children;
+        private long count;
+        private long vehicles;
+        private double speedSum;
+        private long speedCount;
+
+        Node(Level level, long start, long end) {
+            this.level = level;
+            this.start = start;
+            this.end = end;
+            this.children = level == Level.MINUTE ? null : new TreeMap<>();
+        }
+
+        void add(long vehicles, double speedSum, long speedCount) {
+            this.count++;
+            this.vehicles += vehicles;
+            this.speedSum += speedSum;
+            this.speedCount += speedCount;
+        }
+
+        Node child(Level childLevel, LocalDateTime time) {
+            LocalDateTime childStart = childLevel.start(time);
+            long key = childStart.toEpochSecond(ZoneOffset.UTC);
+            return children.computeIfAbsent(key, k ->
+                    new Node(childLevel, k, childLevel.end(childStart).toEpochSecond(ZoneOffset.UTC)));
+        }
+
+        String label() {
+            return level == null ? "All" : LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC).format(level.format);
+        }
+    }
+
+    /**
+     * Sums of a range query.
+     */
+    public static final class RangeTotals {
+
+        private long detections;
+        private long vehicles;
+        private double speedSum;
+        private long speedCount;
+
+        private void add(Node node) {
+            detections += node.count;
+            vehicles += node.vehicles;
+            speedSum += node.speedSum;
+            speedCount += node.speedCount;
+        }
+
+        public long getDetections() {
+            return detections;
+        }
+
+        public long getVehicles() {
+            return vehicles;
+        }
+
+        public Double getAvgVehicles() {
+            return detections > 0 ? (double) vehicles / detections : null;
+        }
+
+        public Double getAvgSpeed() {
+            return speedCount > 0 ? speedSum / speedCount : null;
+        }
+    }
+}
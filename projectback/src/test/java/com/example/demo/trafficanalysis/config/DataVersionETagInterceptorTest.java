@@ -0,0 +1,89 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.controller.DetectionController;
+import com.trafficanalysis.service.AnalysisService;
+import com.trafficanalysis.service.DetectionExportService;
+import com.trafficanalysis.service.DetectionIngestQueue;
+import com.trafficanalysis.service.DetectionStreamService;
+import com.trafficanalysis.store.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DetectionController.class)
+class DataVersionETagInterceptorTest {
+
+    private static final String DOMINANCE = "/api/detections/vehicle-types/dominance";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AnalysisService analysisService;
+    @MockBean
+    private DetectionStreamService detectionStreamService;
+    @MockBean
+    private DetectionIngestQueue detectionIngestQueue;
+    @MockBean
+    private DetectionExportService detectionExportService;
+    @MockBean
+    private DataVersion dataVersion;
+
+    @BeforeEach
+    void setUp() {
+        when(dataVersion.current()).thenReturn(1L);
+        when(analysisService.getVehicleTypeDominance()).thenReturn(Map.of("car", 100.0));
+    }
+
+    @Test
+    void matchingTagIsNotModifiedWithoutCallingTheService() throws Exception {
+        String etag = mockMvc.perform(get(DOMINANCE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(DOMINANCE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(analysisService, times(1)).getVehicleTypeDominance();
+    }
+
+    @Test
+    void newDataChangesTheTag() throws Exception {
+        String etag = mockMvc.perform(get(DOMINANCE)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(dataVersion.current()).thenReturn(2L);
+
+        String next = mockMvc.perform(get(DOMINANCE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, next);
+    }
+
+    @Test
+    void eachFormatHasItsOwnTag() throws Exception {
+        String json = mockMvc.perform(get(DOMINANCE).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(DOMINANCE).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+}
@@ -0,0 +1,161 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.dto.SpeedEvolutionDto;
+import com.trafficanalysis.dto.TrafficEvolutionDto;
+import com.trafficanalysis.store.DetectionStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesBinaryHttpMessageConverterTest {
+
+    @Test
+    void trafficSeriesRoundTrips() throws IOException {
+        TrafficEvolutionDto series = TrafficEvolutionDto.builder()
+                .timestamps(List.of("2025-05-08 21:07:00", "2025-05-08 21:07:05", "2025-05-08 21:06:59"))
+                .epochSeconds(new long[]{1746738420L, 1746738425L, 1746738419L})
+                .car(new int[]{3, 0, Integer.MAX_VALUE})
+                .bus(new int[]{0, 200, 1})
+                .truck(new int[]{1, 1, 1})
+                .nextCursor("abc")
+                .build();
+
+        DataInputStream in = encode(series);
+        assertHeader(in, 1);
+        assertEquals(3, readVarint(in));
+        assertEquals(1, in.readByte());
+        long seconds = 0;
+        for (String timestamp : series.getTimestamps()) {
+            seconds += readSignedVarint(in);
+            assertEquals(LocalDateTime.parse(timestamp.replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC), seconds);
+        }
+        assertEquals(3, readVarint(in));
+        assertArrayEquals(series.getCar(), readCounts(in, "car", 3));
+        assertArrayEquals(series.getBus(), readCounts(in, "bus", 3));
+        assertArrayEquals(series.getTruck(), readCounts(in, "truck", 3));
+        assertEquals("abc", readString(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void unparseableTimestampsAreWrittenAsStrings() throws IOException {
+        TrafficEvolutionDto series = TrafficEvolutionDto.builder()
+                .timestamps(Arrays.asList("2025-05-08 21:07:00", "not a date", null))
+                .epochSeconds(new long[]{1746738420L, DetectionStore.UNKNOWN_DATE, DetectionStore.UNKNOWN_DATE})
+                .car(new int[]{1, 2, 3})
+                .build();
+
+        DataInputStream in = encode(series);
+        assertHeader(in, 1);
+        assertEquals(3, readVarint(in));
+        assertEquals(0, in.readByte());
+        assertEquals("2025-05-08 21:07:00", readString(in));
+        assertEquals("not a date", readString(in));
+        assertEquals("", readString(in));
+        assertEquals(3, readVarint(in));
+        assertArrayEquals(new int[]{1, 2, 3}, readCounts(in, "car", 3));
+        assertArrayEquals(new int[]{0, 0, 0}, readCounts(in, "bus", 3));
+        assertArrayEquals(new int[]{0, 0, 0}, readCounts(in, "truck", 3));
+        assertEquals("", readString(in));
+    }
+
+    @Test
+    void seriesWithoutEpochSecondsIsWrittenAsStrings() throws IOException {
+        TrafficEvolutionDto series = TrafficEvolutionDto.builder()
+                .timestamps(List.of("2025-05-08 21:07:00"))
+                .car(new int[]{1})
+                .build();
+
+        DataInputStream in = encode(series);
+        assertHeader(in, 1);
+        assertEquals(1, readVarint(in));
+        assertEquals(0, in.readByte());
+        assertEquals("2025-05-08 21:07:00", readString(in));
+        assertEquals(3, readVarint(in));
+        assertArrayEquals(new int[]{1}, readCounts(in, "car", 1));
+        assertArrayEquals(new int[]{0}, readCounts(in, "bus", 1));
+        assertArrayEquals(new int[]{0}, readCounts(in, "truck", 1));
+        assertEquals("", readString(in));
+    }
+
+    @Test
+    void speedSeriesKeepsMissingValuesAsNaN() throws IOException {
+        SpeedEvolutionDto series = SpeedEvolutionDto.builder()
+                .timestamps(List.of("2025-05-08 21:07:00", "2025-05-08 21:07:01"))
+                .epochSeconds(new long[]{1746738420L, 1746738421L})
+                .lanes(Map.of("lane_1", new double[]{42.5, Double.NaN}))
+                .build();
+
+        DataInputStream in = encode(series);
+        assertHeader(in, 2);
+        assertEquals(2, readVarint(in));
+        assertEquals(1, in.readByte());
+        assertEquals(1746738420L, readSignedVarint(in));
+        assertEquals(1, readSignedVarint(in));
+        assertEquals(1, readVarint(in));
+        assertEquals("lane_1", readString(in));
+        assertEquals(42.5f, in.readFloat());
+        assertTrue(Float.isNaN(in.readFloat()));
+        assertEquals("", readString(in));
+    }
+
+    private static DataInputStream encode(Object series) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SeriesBinaryHttpMessageConverter.encode(series, out);
+        return new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void assertHeader(DataInputStream in, int kind) throws IOException {
+        assertEquals('T', in.readByte());
+        assertEquals('S', in.readByte());
+        assertEquals(1, in.readByte());
+        assertEquals(kind, in.readByte());
+    }
+
+    private static int[] readCounts(DataInputStream in, String name, int points) throws IOException {
+        assertEquals(name, readString(in));
+        int[] counts = new int[points];
+        long previous = 0;
+        for (int i = 0; i < points; i++) {
+            previous += readSignedVarint(in);
+            counts[i] = (int) previous;
+        }
+        return counts;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readSignedVarint(DataInputStream in) throws IOException {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,84 @@
+package com.trafficanalysis.config;
+
+import com.trafficanalysis.controller.DetectionController;
+import com.trafficanalysis.dto.TrafficEvolutionDto;
+import com.trafficanalysis.service.AnalysisService;
+import com.trafficanalysis.service.DetectionExportService;
+import com.trafficanalysis.service.DetectionIngestQueue;
+import com.trafficanalysis.service.DetectionStreamService;
+import com.trafficanalysis.store.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DetectionController.class)
+class WebConfigTest {
+
+    private static final String EVOLUTION = "/api/detections/temporal/evolution";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AnalysisService analysisService;
+    @MockBean
+    private DetectionStreamService detectionStreamService;
+    @MockBean
+    private DetectionIngestQueue detectionIngestQueue;
+    @MockBean
+    private DetectionExportService detectionExportService;
+    @MockBean
+    private DataVersion dataVersion;
+
+    @BeforeEach
+    void setUp() {
+        when(analysisService.getTrafficEvolution(any())).thenReturn(TrafficEvolutionDto.builder()
+                .timestamps(List.of("2025-05-08 21:07:00"))
+                .car(new int[]{3})
+                .bus(new int[]{0})
+                .truck(new int[]{1})
+                .build());
+    }
+
+    @Test
+    void wildcardAcceptGetsJson() throws Exception {
+        mockMvc.perform(get(EVOLUTION).header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.car[0]").value(3));
+    }
+
+    @Test
+    void missingAcceptGetsJson() throws Exception {
+        mockMvc.perform(get(EVOLUTION))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void binaryFormatsAreUsedWhenRequested() throws Exception {
+        mockMvc.perform(get(EVOLUTION).accept(SeriesBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SeriesBinaryHttpMessageConverter.MEDIA_TYPE));
+        mockMvc.perform(get(EVOLUTION).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"));
+        mockMvc.perform(get(EVOLUTION).accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.trafficanalysis.controller;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.IngestResultDto;
+import com.trafficanalysis.service.AnalysisService;
+import com.trafficanalysis.service.DetectionExportService;
+import com.trafficanalysis.service.DetectionIngestQueue;
+import com.trafficanalysis.service.DetectionStreamService;
+import com.trafficanalysis.store.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DetectionController.class)
+class DetectionControllerTest {
+
+    private static final String BATCH = "/api/detections/batch";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AnalysisService analysisService;
+    @MockBean
+    private DetectionStreamService detectionStreamService;
+    @MockBean
+    private DetectionIngestQueue detectionIngestQueue;
+    @MockBean
+    private DetectionExportService detectionExportService;
+    @MockBean
+    private DataVersion dataVersion;
+
+    private final List<DetectionDto> offered = new ArrayList<>();
+    private int capacity = Integer.MAX_VALUE;
+
+    @BeforeEach
+    void setUp() {
+        // Consumes the detections like the real queue, accepting up to the capacity
+        when(detectionIngestQueue.offer(any())).thenAnswer(invocation -> {
+            Iterator<DetectionDto> detections = invocation.getArgument(0);
+            int accepted = 0;
+            int rejected = 0;
+            while (detections.hasNext()) {
+                DetectionDto detection = detections.next();
+                if (rejected == 0 && accepted < capacity) {
+                    offered.add(detection);
+                    accepted++;
+                } else {
+                    rejected++;
+                }
+            }
+            return IngestResultDto.builder().accepted(accepted).rejected(rejected).queued(accepted).build();
+        });
+    }
+
+    @Test
+    void acceptedBatchIs202() throws Exception {
+        mockMvc.perform(post(BATCH).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"detections\":[" + line(1000) + "," + line(2000) + "]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    void fullQueueIs429WithTheAcceptedCount() throws Exception {
+        capacity = 1;
+
+        mockMvc.perform(post(BATCH).contentType(NDJSON).content(line(1000) + "\n" + line(2000) + "\n"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    void malformedNdjsonLineIs400AfterQueueingTheLinesBeforeIt() throws Exception {
+        String body = line(1000) + "\n" + line(2000) + "\n{\"timestamp_ms\":3000,}\n" + line(4000) + "\n";
+
+        mockMvc.perform(post(BATCH).contentType(NDJSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.failedLine").value(3))
+                .andExpect(jsonPath("$.error").exists());
+        assertEquals(2, offered.size());
+    }
+
+    @Test
+    void ndjsonLineOfTheWrongTypeIs400() throws Exception {
+        String body = line(1000) + "\n{\"timestamp_ms\":\"soon\"}\n";
+
+        mockMvc.perform(post(BATCH).contentType(NDJSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.failedLine").value(2))
+                .andExpect(jsonPath("$.error", containsString("soon")));
+    }
+
+    private static String line(long timestampMs) {
+        return "{\"timestamp_ms\":" + timestampMs + ",\"date\":\"2025-05-08 21:07:00\",\"objects_total\":{\"car\":1}}";
+    }
+}
@@ -0,0 +1,202 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.dto.BottleneckDto;
+import com.trafficanalysis.dto.DashboardDto;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.EvolutionQuery;
+import com.trafficanalysis.dto.SpeedEvolutionDto;
+import com.trafficanalysis.dto.TotalVolumeDto;
+import com.trafficanalysis.dto.TrafficEvolutionDto;
+import com.trafficanalysis.model.RollupGranularity;
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionRingBuffer;
+import com.trafficanalysis.store.DetectionStore;
+import com.trafficanalysis.store.ParallelAggregator;
+import com.trafficanalysis.store.TimeBucketIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisServiceTest {
+
+    private final DetectionStore store = new DetectionStore();
+    private final DetectionAggregates aggregates = new DetectionAggregates(250, 0.5);
+    private final TimeBucketIndex timeBucketIndex = new TimeBucketIndex();
+    private final DataVersion dataVersion = new DataVersion();
+    private final RollupService rollupService = mock(RollupService.class);
+    private final AnalysisService analysisService = new AnalysisService(
+            store,
+            new DetectionRingBuffer(16),
+            aggregates,
+            new AnalysisCache(dataVersion, new SimpleMeterRegistry()),
+            new AnalysisContext(),
+            rollupService,
+            new ParallelAggregator(1, 2),
+            timeBucketIndex);
+
+    @Test
+    void evolutionPagesFollowTheCursor() {
+        ingest(detections(5));
+
+        TrafficEvolutionDto first = analysisService.getTrafficEvolution(EvolutionQuery.builder().limit(2).build());
+        assertArrayEquals(new int[]{1, 2}, first.getCar());
+        assertNotNull(first.getNextCursor());
+
+        TrafficEvolutionDto second = analysisService.getTrafficEvolution(
+                EvolutionQuery.builder().limit(2).cursor(first.getNextCursor()).build());
+        assertArrayEquals(new int[]{3, 4}, second.getCar());
+
+        TrafficEvolutionDto last = analysisService.getTrafficEvolution(
+                EvolutionQuery.builder().limit(2).cursor(second.getNextCursor()).build());
+        assertArrayEquals(new int[]{5}, last.getCar());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void evolutionRangeIsInclusive() {
+        ingest(detections(5));
+
+        TrafficEvolutionDto range = analysisService.getTrafficEvolution(
+                EvolutionQuery.builder().from(2000L).to(4000L).build());
+        assertArrayEquals(new int[]{2, 3, 4}, range.getCar());
+        // 2025-05-08 21:07:02 to 21:07:04, for the binary format
+        assertArrayEquals(new long[]{1746738422L, 1746738423L, 1746738424L}, range.getEpochSeconds());
+        assertNull(range.getNextCursor());
+    }
+
+    @Test
+    void volumeSplitsKeepSumsBeyondTheIntRange() {
+        when(rollupService.totalsByBucket(RollupGranularity.HOUR_OF_DAY))
+                .thenReturn(Map.of(0L, (long) Integer.MAX_VALUE, 5L, 1L, 12L, 7L));
+        when(rollupService.totalsByBucket(RollupGranularity.DAY_OF_WEEK))
+                .thenReturn(Map.of(6L, 3_000_000_000L, 7L, 1L));
+
+        TotalVolumeDto volume = analysisService.getTotalVolume();
+
+        assertEquals(Map.of("night", 2_147_483_648L, "morning", 0L, "afternoon", 7L, "evening", 0L), volume.getHourly());
+        assertEquals(Map.of("weekday", 0L, "weekend", 3_000_000_001L), volume.getDaily());
+        assertEquals((long) Integer.MAX_VALUE, analysisService.getHourlyPatterns().get("00:00"));
+    }
+
+    @Test
+    void invalidCursorIsABadRequest() {
+        ingest(detections(1));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () ->
+                analysisService.getTrafficEvolution(EvolutionQuery.builder().cursor("nope").build()));
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    @Test
+    void speedEvolutionHasASeriesPerReportingLane() throws Exception {
+        ingest(List.of(
+                speeds(1000L, Map.of("lane_10", 30.0, "lane_2", 40.0)),
+                speeds(2000L, Map.of("lane_2", 45.0)),
+                DetectionDto.builder().timestamp_ms(3000L).date("2025-05-08 21:07:03")
+                        .objects_by_lane(Map.of("lane_7", Map.of("car", 1))).build()));
+
+        SpeedEvolutionDto evolution = analysisService.getSpeedEvolution(EvolutionQuery.builder().build());
+
+        // Natural lane order, and lanes that never reported a speed are left out
+        assertEquals(List.of("lane_2", "lane_10"), List.copyOf(evolution.getLanes().keySet()));
+        assertArrayEquals(new double[]{40.0, 45.0, Double.NaN}, evolution.getLanes().get("lane_2"));
+        // Missing points are written as null
+        String json = new ObjectMapper().writeValueAsString(evolution);
+        assertTrue(json.contains("\"lanes\":{\"lane_2\":[40.0,45.0,null],\"lane_10\":[30.0,null,null]}"), json);
+        assertFalse(json.contains("epochSeconds"), json);
+    }
+
+    @Test
+    void dashboardHoldsOnlyTheSelectedWidgets() {
+        ingest(detections(10));
+
+        DashboardDto dashboard = analysisService.getDashboard(Set.of("trafficEvolution", "avgSpeedByLane"), 3);
+
+        assertEquals(3, dashboard.getTrafficEvolution().getCar().length);
+        assertEquals(55.0, dashboard.getAvgSpeedByLane().get("lane_1"));
+        assertNull(dashboard.getTotalVolume());
+        assertNull(dashboard.getSpeedEvolution());
+    }
+
+    @Test
+    void unknownDashboardFieldIsABadRequest() {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () ->
+                analysisService.getDashboard(Set.of("summary", "weather"), null));
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    @Test
+    void bottlenecksAreComputedOncePerRequest() {
+        ingest(detections(1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            List<BottleneckDto> first = analysisService.getBottlenecks();
+            assertEquals(10.0, first.get(0).getAvgSpeed());
+
+            // Data arriving mid-request does not change what the request already used
+            ingest(List.of(DetectionDto.builder()
+                    .timestamp_ms(2000L)
+                    .date("2025-05-08 21:07:02")
+                    .avg_speed_by_lane(Map.of("lane_1", 100.0))
+                    .build()));
+            assertSame(first, analysisService.getBottlenecks());
+            assertEquals(1, analysisService.getAnalysisSummary().get("bottleneckCount"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertEquals(55.0, analysisService.getBottlenecks().get(0).getAvgSpeed());
+    }
+
+    private void ingest(List<DetectionDto> detections) {
+        store.appendAll(detections);
+        aggregates.accept(detections);
+        timeBucketIndex.accept(detections);
+        dataVersion.increment();
+    }
+
+    private static DetectionDto speeds(long timestampMs, Map<String, Double> avgSpeedByLane) {
+        return DetectionDto.builder()
+                .timestamp_ms(timestampMs)
+                .date("2025-05-08 21:07:00")
+                .avg_speed_by_lane(avgSpeedByLane)
+                .build();
+    }
+
+    // Detection i (1-based) at i seconds with i cars on lane_1, driving at 10 * i km/h
+    static List<DetectionDto> detections(int count) {
+        List<DetectionDto> detections = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            detections.add(DetectionDto.builder()
+                    .timestamp_ms(1000L * i)
+                    .date(String.format("2025-05-08 21:07:%02d", i))
+                    .objects_total(Map.of("car", i, "bus", 0, "truck", 0))
+                    .objects_by_lane(Map.of("lane_1", Map.of("car", i)))
+                    .avg_speed_by_lane(Map.of("lane_1", 10.0 * i))
+                    .build());
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,79 @@
+package com.trafficanalysis.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DatabaseLimiter limiter = new DatabaseLimiter(meterRegistry, 1, 50);
+
+    @Test
+    void requestIs503WhileEveryPermitIsHeld() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> limiter.runBlocking(() -> {
+            holding.countDown();
+            await(release);
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> limiter.call(() -> "read"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+        assertEquals(0.0, meterRegistry.get("traffic.db.permits.available").gauge().value());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals("read", limiter.call(() -> "read"));
+    }
+
+    @Test
+    void permitIsReleasedWhenTheCallFails() {
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            throw new IllegalStateException("query failed");
+        }));
+
+        assertEquals(1.0, meterRegistry.get("traffic.db.permits.available").gauge().value());
+        assertEquals("read", limiter.call(() -> "read"));
+    }
+
+    @Test
+    void backgroundWorkWaitsForAPermit() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> request = CompletableFuture.supplyAsync(() -> limiter.call(() -> {
+            holding.countDown();
+            await(release);
+            return "read";
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread background = new Thread(() -> limiter.runBlocking(ran::countDown));
+        background.start();
+
+        // Still waiting well past the request timeout
+        assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals("read", request.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
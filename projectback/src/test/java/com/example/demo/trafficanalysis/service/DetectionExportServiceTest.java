@@ -0,0 +1,122 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.model.Detection;
+import com.trafficanalysis.repository.DetectionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DetectionExportServiceTest {
+
+    private final DetectionRepository repository = mock(DetectionRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesRowsAndCount() throws IOException {
+        when(repository.streamRange(1000L, 2000L, PageRequest.of(0, 11))).thenReturn(Stream.of(
+                Detection.builder().timestampMs(1000L).date("2025-05-08 21:07:00").carCount(3).truckCount(1).build(),
+                Detection.builder().timestampMs(2000L).date("2025-05-08 21:07:01").carCount(2).build()));
+
+        JsonNode export = export(service(1, 10), 1000L, 2000L);
+
+        assertEquals(2, export.get("count").asInt());
+        assertEquals(2, export.get("detections").size());
+        JsonNode first = export.get("detections").get(0);
+        assertEquals(1000L, first.get("timestamp_ms").asLong());
+        assertEquals(3, first.get("car").asInt());
+        // Classes the detector did not report are left out
+        assertFalse(first.has("bus"));
+        assertFalse(export.has("truncated"));
+    }
+
+    @Test
+    void stopsAtTheRowCap() throws IOException {
+        when(repository.streamRange(anyLong(), anyLong(), any())).thenReturn(detections(5));
+
+        JsonNode export = export(service(1, 3), null, null);
+
+        assertEquals(3, export.get("count").asInt());
+        assertEquals(3, export.get("detections").size());
+        assertTrue(export.get("truncated").asBoolean());
+    }
+
+    @Test
+    void exportBeyondItsPermitsIs503() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.streamRange(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await();
+            return detections(1);
+        });
+        DetectionExportService service = service(1, 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                service.writeEvolution(null, null, new ByteArrayOutputStream());
+                return null;
+            });
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                    () -> service.writeEvolution(null, null, new ByteArrayOutputStream()));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private DetectionExportService service(int maxConcurrency, int maxRows) {
+        DetectionExportService service = new DetectionExportService(
+                repository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                objectMapper,
+                new SimpleMeterRegistry(),
+                maxConcurrency,
+                50,
+                maxRows);
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+        return service;
+    }
+
+    private JsonNode export(DetectionExportService service, Long from, Long to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeEvolution(from, to, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static Stream<Detection> detections(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(i -> Detection.builder()
+                .timestampMs(1000L * i)
+                .date("2025-05-08 21:07:00")
+                .carCount(1)
+                .build());
+    }
+}
@@ -0,0 +1,116 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DetectionFileWatcherTest {
+
+    private static final long DEBOUNCE_MS = 300;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RecordingLoader loader;
+    private DetectionFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        loader = new RecordingLoader(directory.resolve("detections.json").toFile());
+        watcher = new DetectionFileWatcher(loader, meterRegistry, DEBOUNCE_MS);
+        watcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.stop();
+    }
+
+    @Test
+    void burstOfWritesIsLoadedOnce() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(loader.file.toPath(), "{\"detections\": [" + i + "]}");
+        }
+
+        loader.awaitLoads(1);
+        Thread.sleep(3 * DEBOUNCE_MS);
+        assertEquals(1, loader.loads.get());
+        assertEquals(1, meterRegistry.get("traffic.watcher.lag").timer().count());
+    }
+
+    @Test
+    void fileReplacedByARenameIsLoaded() throws Exception {
+        Path temporary = Files.writeString(directory.resolve("detections.json.tmp"), "{\"detections\": []}");
+        Files.move(temporary, loader.file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        loader.awaitLoads(1);
+    }
+
+    @Test
+    void incompleteFileIsRetried() throws Exception {
+        loader.failures.set(1);
+
+        Files.writeString(loader.file.toPath(), "{\"detections\": [");
+
+        loader.awaitLoads(2);
+        Thread.sleep(3 * DEBOUNCE_MS);
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    void otherFilesInTheDirectoryAreIgnored() throws Exception {
+        Files.writeString(directory.resolve("other.json"), "{}");
+
+        Thread.sleep(3 * DEBOUNCE_MS);
+        assertEquals(0, loader.loads.get());
+    }
+
+    /**
+     * Counts loads, failing the first {@code failures} of them as a truncated file would.
+     */
+    private static final class RecordingLoader implements DetectionFileLoader {
+
+        private final File file;
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        RecordingLoader(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public File getDetectionFile() {
+            return file;
+        }
+
+        @Override
+        public void loadAndSaveDetections(File loaded) throws IOException {
+            assertEquals(file, loaded);
+            loads.incrementAndGet();
+            if (failures.getAndDecrement() > 0) {
+                throw new JsonParseException(null, "Unexpected end-of-input");
+            }
+        }
+
+        void awaitLoads(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (loads.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(expected, loads.get());
+        }
+    }
+}
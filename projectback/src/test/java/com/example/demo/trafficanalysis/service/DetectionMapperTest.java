@@ -0,0 +1,70 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.Detection;
+import com.trafficanalysis.model.LaneMetric;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectionMapperTest {
+
+    private final DetectionMapper mapper = new DetectionMapper();
+
+    @Test
+    void metricsGoToTypedColumns() {
+        DetectionDto dto = DetectionDto.builder()
+                .timestamp_ms(1500L)
+                .date("2025-05-08 21:07:00")
+                .objects_total(Map.of("car", 4, "truck", 1))
+                .objects_by_lane(Map.of("lane_2", Map.of("car", 3), "lane_1", Map.of("car", 1, "truck", 1)))
+                .avg_speed_by_lane(Map.of("lane_1", 48.5, "lane_3", 30.0))
+                .build();
+
+        Detection detection = mapper.toEntity(dto);
+
+        assertEquals(4, detection.getCarCount());
+        assertNull(detection.getBusCount());
+        assertEquals(1, detection.getTruckCount());
+        // One metric per lane that reported counts or a speed, ordered by lane
+        assertEquals(3, detection.getLaneMetrics().size());
+        LaneMetric lane1 = detection.getLaneMetrics().get(0);
+        assertEquals("lane_1", lane1.getLane());
+        assertEquals(1, lane1.getCarCount());
+        assertEquals(48.5, lane1.getAvgSpeed());
+        LaneMetric lane3 = detection.getLaneMetrics().get(2);
+        assertNull(lane3.getCarCount());
+        assertEquals(30.0, lane3.getAvgSpeed());
+    }
+
+    @Test
+    void roundTripKeepsWhatWasReported() {
+        DetectionDto dto = DetectionDto.builder()
+                .timestamp_ms(1500L)
+                .date("2025-05-08 21:07:00")
+                .objects_total(Map.of("car", 4, "bus", 0))
+                .objects_by_lane(Map.of("lane_1", Map.of("car", 4, "bus", 0)))
+                .avg_speed_by_lane(Map.of("lane_1", 48.5))
+                .build();
+
+        DetectionDto back = mapper.toDto(mapper.toEntity(dto));
+
+        assertEquals(dto.getTimestamp_ms(), back.getTimestamp_ms());
+        assertEquals(dto.getDate(), back.getDate());
+        assertEquals(dto.getObjects_total(), back.getObjects_total());
+        assertEquals(dto.getObjects_by_lane(), back.getObjects_by_lane());
+        assertEquals(dto.getAvg_speed_by_lane(), back.getAvg_speed_by_lane());
+    }
+
+    @Test
+    void missingMapsMapToNoMetrics() {
+        Detection detection = mapper.toEntity(DetectionDto.builder().timestamp_ms(1L).build());
+
+        assertNull(detection.getCarCount());
+        assertTrue(detection.getLaneMetrics().isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.controller.DetectionController;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.store.DetectionAggregates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class DetectionStreamServiceTest {
+
+    private final DetectionAggregates aggregates = new DetectionAggregates(250, 0.5);
+    private final DetectionStreamService streamService =
+            new DetectionStreamService(aggregates, new SimpleMeterRegistry(), 4, 0, 1);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DetectionController(
+            mock(AnalysisService.class), streamService, mock(DetectionIngestQueue.class),
+            mock(DetectionExportService.class), new ObjectMapper())).build();
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void subscribersReceiveTheBatchAndTheAggregatesItChanged() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/detections/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        aggregates.accept(List.of(detection("bus", 5)));
+        List<DetectionDto> batch = List.of(detection("car", 2));
+        aggregates.accept(batch);
+        streamService.onDetectionsIngested(new DetectionsIngestedEvent(7L, batch));
+
+        String body = awaitEvent(stream, "detections");
+        assertTrue(body.contains("id:7"), body);
+        // Only the classes present in the batch are sent
+        assertTrue(body.contains("\"totals\":{\"car\":2}"), body);
+    }
+
+    private static DetectionDto detection(String vehicleClass, int count) {
+        return DetectionDto.builder()
+                .timestamp_ms(1000L)
+                .date("2025-05-08 21:07:00")
+                .objects_total(Map.of(vehicleClass, count))
+                .build();
+    }
+
+    // The event is written in several pieces, so wait for its blank-line terminator
+    private static String awaitEvent(MvcResult result, String name) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            String body = result.getResponse().getContentAsString();
+            int start = body.indexOf("event:" + name + "\n");
+            int end = start >= 0 ? body.indexOf("\n\n", start) : -1;
+            if (end >= 0) {
+                return body.substring(start, end);
+            }
+            Thread.sleep(10);
+        }
+        fail("No complete '" + name + "' event in the stream: " + result.getResponse().getContentAsString());
+        return null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.trafficanalysis.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.DetectionsWrapper;
+import com.trafficanalysis.repository.DetectionRepository;
+import com.trafficanalysis.store.DataVersion;
+import com.trafficanalysis.store.DetectionAggregates;
+import com.trafficanalysis.store.DetectionRingBuffer;
+import com.trafficanalysis.store.DetectionStore;
+import com.trafficanalysis.store.TimeBucketIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JsonLoaderServiceTest {
+
+    private final DetectionBatchWriter writer = mock(DetectionBatchWriter.class);
+    private final RollupService rollupService = mock(RollupService.class);
+    private final DetectionStore store = new DetectionStore();
+    private final DataVersion dataVersion = new DataVersion();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JsonLoaderService loader;
+
+    @BeforeEach
+    void setUp() {
+        when(writer.getBatchSize()).thenReturn(2);
+        loader = new JsonLoaderService(
+                mock(DetectionRepository.class),
+                writer,
+                rollupService,
+                store,
+                new DetectionAggregates(250, 0.5),
+                new DetectionRingBuffer(16),
+                new TimeBucketIndex(),
+                dataVersion,
+                mock(ApplicationEventPublisher.class),
+                new DetectionMapper(),
+                mock(DetectionMigrationService.class),
+                meterRegistry);
+    }
+
+    @Test
+    void failedChunkIsNotPublishedAndIsAcceptedAgain() {
+        doNothing().doThrow(new IllegalStateException("connection lost")).when(writer).write(anyList(), any());
+
+        assertThrows(IllegalStateException.class, () -> loader.ingest(detections(4)));
+        assertEquals(2, store.size());
+        assertEquals(1, dataVersion.current());
+
+        doNothing().when(writer).write(anyList(), any());
+        assertEquals(2, loader.ingest(detections(4)));
+        assertEquals(4, store.size());
+        assertEquals(2, dataVersion.current());
+    }
+
+    @Test
+    void rollupsAreWrittenInTheChunkTransaction() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(writer).write(anyList(), any());
+        doNothing().doThrow(new IllegalStateException("deadlock")).when(rollupService).recordInTransaction(anyList());
+
+        assertThrows(IllegalStateException.class, () -> loader.ingest(detections(4)));
+        assertEquals(2, store.size());
+
+        doNothing().when(rollupService).recordInTransaction(anyList());
+        assertEquals(2, loader.ingest(detections(4)));
+        assertEquals(4, store.size());
+        verify(rollupService, times(3)).recordInTransaction(anyList());
+        verify(rollupService, never()).record(anyList());
+    }
+
+    @Test
+    void ingestSkipsDetectionsAlreadyStored() {
+        assertEquals(3, loader.ingest(detections(3)));
+        assertEquals(1, loader.ingest(detections(4)));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void batchSizesAreRecordedOnOneSummary() {
+        loader.ingest(detections(3));
+        loader.ingest(detections(4));
+
+        DistributionSummary summary = meterRegistry.get("traffic.ingest.batch.size").summary();
+        assertEquals(2, summary.count());
+        assertEquals(4.0, summary.totalAmount());
+    }
+
+    @Test
+    void reloadingTheFileOnlyStoresNewDetections(@TempDir Path directory) throws IOException {
+        File file = directory.resolve("detections.json").toFile();
+
+        write(file, detections(3), false);
+        loader.loadAndSaveDetections(file);
+        assertEquals(3, store.size());
+
+        // The detector rewrites the whole file with the new detections appended
+        write(file, detections(5), false);
+        loader.loadAndSaveDetections(file);
+        assertEquals(5, store.size());
+
+        write(file, detections(5), true);
+        loader.loadAndSaveDetections(file);
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void detectionsArrayIsFoundAfterOtherFields() throws IOException {
+        String json = "{\"meta\": {\"detections\": 1, \"lanes\": [1, 2]}, \"version\": 2, \"detections\": [{}]}";
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+            assertTrue(JsonLoaderService.moveToDetectionsArray(parser));
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+        }
+    }
+
+    @Test
+    void missingDetectionsArrayIsNotFound() throws IOException {
+        for (String json : List.of("{\"detections\": {}}", "{\"other\": []}", "[]")) {
+            try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+                assertFalse(JsonLoaderService.moveToDetectionsArray(parser), json);
+            }
+        }
+    }
+
+    @Test
+    void fileIsWrittenInChunksWhileItIsRead(@TempDir Path directory) throws IOException {
+        File file = directory.resolve("detections.json").toFile();
+        write(file, detections(5), false);
+
+        loader.loadAndSaveDetections(file);
+
+        verify(writer, times(3)).write(anyList(), any());
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void malformedFileIsCountedAndKeepsTheChunksBeforeIt(@TempDir Path directory) throws IOException {
+        File file = directory.resolve("detections.json").toFile();
+        String detection = "{\"timestamp_ms\": %d, \"date\": \"2025-05-08 21:07:0%d\"}";
+        Files.writeString(file.toPath(), "{\"detections\": [" + String.format(detection, 1000, 0) + ", "
+                + String.format(detection, 2000, 1) + ", " + String.format(detection, 3000, 2) + ", {\"timestamp_ms\": }]}");
+
+        assertThrows(JsonProcessingException.class, () -> loader.loadAndSaveDetections(file));
+        assertEquals(2, store.size());
+        assertEquals(1.0, meterRegistry.get("traffic.ingest.parse.failures").counter().count());
+    }
+
+    private static void write(File file, List<DetectionDto> detections, boolean pretty) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        (pretty ? mapper.writerWithDefaultPrettyPrinter() : mapper.writer())
+                .writeValue(file, new DetectionsWrapper(detections));
+    }
+
+    private static List<DetectionDto> detections(int count) {
+        List<DetectionDto> detections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            detections.add(DetectionDto.builder()
+                    .timestamp_ms(1000L * (i + 1))
+                    .date("2025-05-08 21:07:0" + i)
+                    .objects_total(Map.of("car", 1))
+                    .build());
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,107 @@
+package com.trafficanalysis.service;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.model.RollupGranularity;
+import com.trafficanalysis.model.TrafficRollup;
+import com.trafficanalysis.repository.TrafficRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RollupServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TrafficRollupRepository repository = mock(TrafficRollupRepository.class);
+    private final DatabaseLimiter databaseLimiter = new DatabaseLimiter(new SimpleMeterRegistry(), 1, 100);
+    private final RollupService rollupService = new RollupService(jdbcTemplate, repository, databaseLimiter);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchIsFoldedIntoOneDeltaPerProfileBucket() {
+        rollupService.record(List.of(
+                detection("2025-05-08 21:07:00", 2),
+                detection("2025-05-08 21:59:59", 3),
+                detection("2025-05-10 06:00:00", 1)));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        Map<String, Long> deltas = new HashMap<>();
+        for (Object[] row : rows.getValue()) {
+            deltas.put(row[0] + "/" + row[1] + "/" + row[2] + "/" + row[3], (Long) row[4]);
+        }
+
+        // 2025-05-08 is a Thursday (4), 2025-05-10 a Saturday (6)
+        assertEquals(Map.of(
+                "HOUR_OF_DAY/21//car", 5L,
+                "HOUR_OF_DAY/21/lane_1/car", 5L,
+                "HOUR_OF_DAY/6//car", 1L,
+                "HOUR_OF_DAY/6/lane_1/car", 1L,
+                "DAY_OF_WEEK/4//car", 5L,
+                "DAY_OF_WEEK/4/lane_1/car", 5L,
+                "DAY_OF_WEEK/6//car", 1L,
+                "DAY_OF_WEEK/6/lane_1/car", 1L), deltas);
+    }
+
+    @Test
+    void deltasJoinTheCallersTransactionUnderItsPermit() {
+        // The only permit is held by the chunk write that the deltas belong to
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> databaseLimiter.runBlocking(
+                () -> rollupService.recordInTransaction(List.of(detection("2025-05-08 21:07:00", 2)))));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void detectionsWithoutADateAreSkipped() {
+        rollupService.record(List.of(DetectionDto.builder().objects_total(Map.of("car", 1)).build()));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void totalsAreReadFromTheTotalLane() {
+        when(repository.sumTotalsByBucket(eq(RollupGranularity.HOUR_OF_DAY), eq(TrafficRollup.TOTAL_LANE)))
+                .thenReturn(List.of(total(21L, 5L)));
+
+        assertEquals(Map.of(21L, 5L), rollupService.totalsByBucket(RollupGranularity.HOUR_OF_DAY));
+    }
+
+    private static DetectionDto detection(String date, int cars) {
+        return DetectionDto.builder()
+                .date(date)
+                .timestamp_ms(1L)
+                .objects_total(Map.of("car", cars))
+                .objects_by_lane(Map.of("lane_1", Map.of("car", cars)))
+                .build();
+    }
+
+    private static TrafficRollupRepository.BucketTotal total(Long bucket, Long vehicles) {
+        return new TrafficRollupRepository.BucketTotal() {
+            @Override
+            public Long getBucket() {
+                return bucket;
+            }
+
+            @Override
+            public Long getVehicles() {
+                return vehicles;
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.trafficanalysis.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesDownsamplerTest {
+
+    @Test
+    void lttbKeepsEveryPointUnderTheThreshold() {
+        long[] x = {0, 1, 2};
+        double[] y = {1.0, 2.0, 3.0};
+
+        assertArrayEquals(new int[]{0, 1, 2}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 3));
+    }
+
+    @Test
+    void lttbKeepsTheEndsAndThePeak() {
+        long[] x = new long[10];
+        double[] y = new double[10];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+        }
+        y[5] = 100.0;
+
+        assertArrayEquals(new int[]{0, 5, 9}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 3));
+        assertArrayEquals(new int[]{0, 9}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 2));
+    }
+
+    @Test
+    void lttbPicksOneAscendingPointPerBucket() {
+        Random random = new Random(7);
+        long[] x = new long[1000];
+        double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 1000L * i;
+            // Missing values count as zero
+            y[i] = i % 17 == 0 ? Double.NaN : random.nextGaussian();
+        }
+
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(x, y, 50);
+
+        assertEquals(50, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(x.length - 1, kept[kept.length - 1]);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue(kept[i] > kept[i - 1]);
+        }
+    }
+
+    @Test
+    void fixedBucketsSplitTheTimeSpan() {
+        long[] x = {0, 1, 2, 10, 11, 20};
+
+        assertArrayEquals(new int[]{0, 4, 6}, SeriesDownsampler.fixedBuckets(x, 2));
+        // Empty buckets are skipped
+        assertArrayEquals(new int[]{0, 3, 4}, SeriesDownsampler.fixedBuckets(new long[]{0, 1, 2, 20}, 4));
+        assertArrayEquals(new int[]{0}, SeriesDownsampler.fixedBuckets(new long[0], 4));
+    }
+
+    @Test
+    void aggregateIgnoresMissingValues() {
+        double[] values = {1.0, Double.NaN, 3.0, Double.NaN};
+
+        assertEquals(2.0, SeriesDownsampler.aggregate(values, 0, 4, SeriesDownsampler.Mode.AVG));
+        assertEquals(1.0, SeriesDownsampler.aggregate(values, 0, 4, SeriesDownsampler.Mode.MIN));
+        assertEquals(3.0, SeriesDownsampler.aggregate(values, 0, 4, SeriesDownsampler.Mode.MAX));
+        assertTrue(Double.isNaN(SeriesDownsampler.aggregate(values, 3, 4, SeriesDownsampler.Mode.MAX)));
+    }
+
+    @Test
+    void modeDefaultsToLttb() {
+        assertEquals(SeriesDownsampler.Mode.LTTB, SeriesDownsampler.Mode.from(null));
+        assertEquals(SeriesDownsampler.Mode.MAX, SeriesDownsampler.Mode.from(" max "));
+    }
+}
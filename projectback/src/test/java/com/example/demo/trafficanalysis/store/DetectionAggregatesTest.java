@@ -0,0 +1,57 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DetectionAggregatesTest {
+
+    private final DetectionAggregates aggregates = new DetectionAggregates(250, 0.5);
+
+    @Test
+    void latestVolumeFollowsTheDateAcrossDetectorRuns() {
+        aggregates.accept(List.of(
+                detection("2025-05-08 21:07:00", 90_000L, "lane_1"),
+                // The next detector run restarts its relative timestamps
+                detection("2025-05-09 08:00:00", 1_000L, "lane_2")));
+
+        assertEquals(Map.of("lane_2", Map.of("car", 1)), aggregates.getLatestVolumeByLane());
+
+        aggregates.accept(List.of(detection("2025-05-08 23:59:59", 120_000L, "lane_3")));
+        assertEquals(Map.of("lane_2", Map.of("car", 1)), aggregates.getLatestVolumeByLane());
+    }
+
+    @Test
+    void latestVolumeUsesTheTimestampWithinADate() {
+        aggregates.accept(List.of(
+                detection("2025-05-08 21:07:00", 2_000L, "lane_1"),
+                detection("2025-05-08 21:07:00", 1_000L, "lane_2")));
+
+        assertEquals(Map.of("lane_1", Map.of("car", 1)), aggregates.getLatestVolumeByLane());
+    }
+
+    @Test
+    void totalsByClassDoNotOverflowAnInt() {
+        DetectionDto big = DetectionDto.builder()
+                .date("2025-05-08 21:07:00")
+                .timestamp_ms(1L)
+                .objects_total(Map.of("car", Integer.MAX_VALUE))
+                .build();
+        aggregates.accept(List.of(big, big));
+
+        assertEquals(2L * Integer.MAX_VALUE, aggregates.getTotalsByClass().get("car"));
+    }
+
+    private static DetectionDto detection(String date, long timestampMs, String lane) {
+        return DetectionDto.builder()
+                .date(date)
+                .timestamp_ms(timestampMs)
+                .objects_total(Map.of("car", 1))
+                .objects_by_lane(Map.of(lane, Map.of("car", 1)))
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.trafficanalysis.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DetectionRingBufferTest {
+
+    @Test
+    void keepsTheNewestRowsInOrder() {
+        DetectionRingBuffer buffer = new DetectionRingBuffer(4);
+        buffer.append(0, 3);
+        assertEquals(3, buffer.size());
+        assertArrayEquals(new int[]{0, 1, 2}, buffer.head(8));
+        assertArrayEquals(new int[]{2, 1}, buffer.tail(2));
+
+        buffer.append(3, 3);
+        assertEquals(4, buffer.size());
+        assertArrayEquals(new int[]{2, 3, 4, 5}, buffer.head(4));
+        assertArrayEquals(new int[]{5, 4, 3, 2}, buffer.tail(4));
+    }
+
+    @Test
+    void batchLargerThanCapacityKeepsItsLastRows() {
+        DetectionRingBuffer buffer = new DetectionRingBuffer(4);
+        buffer.append(0, 1);
+        buffer.append(10, 7);
+        assertEquals(4, buffer.size());
+        assertArrayEquals(new int[]{13, 14, 15, 16}, buffer.head(4));
+        assertArrayEquals(new int[]{16, 15, 14, 13}, buffer.tail(4));
+
+        buffer.append(17, 2);
+        assertArrayEquals(new int[]{15, 16, 17, 18}, buffer.head(4));
+        assertArrayEquals(new int[]{18, 17}, buffer.tail(2));
+    }
+
+    @Test
+    void emptyBufferReturnsNothing() {
+        DetectionRingBuffer buffer = new DetectionRingBuffer(4);
+        assertArrayEquals(new int[0], buffer.head(3));
+        assertArrayEquals(new int[0], buffer.tail(3));
+        assertArrayEquals(new int[0], buffer.tail(-1));
+    }
+}
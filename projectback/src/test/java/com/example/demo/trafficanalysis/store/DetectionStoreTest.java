@@ -0,0 +1,144 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectionStoreTest {
+
+    @Test
+    void sortByTimestampIsStableAcrossRuns() {
+        long[] timestamps = {5, 7, 9, 1, 7, 8, 0, 9};
+        int[] rows = {0, 1, 2, 3, 4, 5, 6, 7};
+
+        assertArrayEquals(new int[]{6, 3, 0, 1, 4, 5, 2, 7}, DetectionStore.sortByTimestamp(rows, timestamps));
+    }
+
+    @Test
+    void sortByTimestampMatchesAFullSort() {
+        Random random = new Random(42);
+        long[] timestamps = new long[1000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = random.nextInt(200);
+        }
+        int[] rows = new int[timestamps.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+
+        int[] expected = IntStream.range(0, rows.length).boxed()
+                .sorted((a, b) -> Long.compare(timestamps[a], timestamps[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, DetectionStore.sortByTimestamp(rows, timestamps));
+    }
+
+    @Test
+    void sortedOrderMergesRowsAppendedLater() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(detections(1000, 2000, 3000));
+        assertArrayEquals(new int[]{0, 1, 2}, store.snapshot().sortedByTimestamp());
+
+        // A new detector run restarts the relative timestamps
+        store.appendAll(detections(500, 2000, 2500));
+        assertArrayEquals(new int[]{3, 0, 1, 4, 5, 2}, store.snapshot().sortedByTimestamp());
+    }
+
+    @Test
+    void rangePagesFollowTheKeyset() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(detections(1000, 2000, 2000, 3000, 4000));
+        DetectionStore.Snapshot snapshot = store.snapshot();
+
+        assertArrayEquals(new int[]{1, 2}, snapshot.rangeByTimestamp(1500, 3500, Long.MIN_VALUE, -1, 2));
+        // Resumes after (2000, row 1), inside the duplicated timestamp
+        assertArrayEquals(new int[]{2, 3}, snapshot.rangeByTimestamp(1500, 3500, 2000, 1, 10));
+        assertArrayEquals(new int[0], snapshot.rangeByTimestamp(1500, 3500, 3000, 3, 10));
+    }
+
+    @Test
+    void olderSnapshotOnlySeesItsOwnRowsInOrder() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(detections(3000, 4000));
+        DetectionStore.Snapshot before = store.snapshot();
+        store.appendAll(detections(1000));
+        store.snapshot().sortedByTimestamp();
+
+        assertArrayEquals(new int[]{0, 1}, before.sortedByTimestamp());
+    }
+
+    @Test
+    void snapshotReadsTheColumnsOfEachRow() {
+        DetectionStore store = new DetectionStore();
+        store.append(DetectionDto.builder()
+                .timestamp_ms(1000L)
+                .date("2025-05-08 21:07:00")
+                .objects_total(Map.of("car", 3, "truck", 1))
+                .objects_by_lane(Map.of("lane_2", Map.of("car", 2)))
+                .avg_speed_by_lane(Map.of("lane_2", 42.5))
+                .build());
+        store.append(DetectionDto.builder()
+                .timestamp_ms(2000L)
+                .date("not a date")
+                .objects_total(Map.of("car", 1))
+                .build());
+
+        DetectionStore.Snapshot snapshot = store.snapshot();
+        int car = snapshot.classId("car");
+        int truck = snapshot.classId("truck");
+        int lane2 = snapshot.laneId("lane_2");
+
+        assertEquals(2, snapshot.size());
+        assertEquals(3, snapshot.total(0, car));
+        assertEquals(0, snapshot.total(1, truck));
+        assertEquals(0, snapshot.total(0, snapshot.classId("bus")));
+        assertEquals(2, snapshot.laneCount(0, lane2, car));
+        assertEquals(42.5f, snapshot.laneSpeed(0, lane2));
+        assertTrue(Float.isNaN(snapshot.laneSpeed(1, lane2)));
+        assertEquals(21, snapshot.hourOfDay(0));
+        assertEquals("2025-05-08 21:07:00", snapshot.date(0));
+        // Unparseable dates are kept as reported
+        assertEquals(-1, snapshot.hourOfDay(1));
+        assertEquals("not a date", snapshot.date(1));
+    }
+
+    @Test
+    void snapshotIgnoresRowsAndColumnsAddedLater() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(detections(1000));
+        DetectionStore.Snapshot before = store.snapshot();
+
+        store.append(DetectionDto.builder()
+                .timestamp_ms(2000L)
+                .date("2025-05-08 21:07:01")
+                .objects_total(Map.of("bus", 2))
+                .avg_speed_by_lane(Map.of("lane_9", 30.0))
+                .build());
+
+        assertEquals(1, before.size());
+        assertEquals(List.of("car"), before.vehicleClasses());
+        assertEquals(-1, before.laneId("lane_9"));
+        assertEquals(2, store.snapshot().total(1, store.snapshot().classId("bus")));
+    }
+
+    static List<DetectionDto> detections(long... timestamps) {
+        List<DetectionDto> detections = new ArrayList<>(timestamps.length);
+        for (long timestamp : timestamps) {
+            detections.add(DetectionDto.builder()
+                    .timestamp_ms(timestamp)
+                    .date("2025-05-08 21:07:00")
+                    .objects_total(Map.of("car", 1))
+                    .build());
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,65 @@
+package com.trafficanalysis.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramSketchTest {
+
+    @Test
+    void quantilesAreWithinOneBinOfTheExactOnes() {
+        Random random = new Random(5);
+        double[] values = new double[10_000];
+        HistogramSketch sketch = new HistogramSketch(0.0, 250.0, 0.5);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.max(0.0, 45.0 + random.nextGaussian() * 12.0);
+            sketch.accept(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.05, 0.5, 0.95, 0.99}) {
+            double exact = values[(int) Math.ceil(q * values.length) - 1];
+            assertEquals(exact, sketch.quantile(q), 0.5, "q=" + q);
+        }
+    }
+
+    @Test
+    void valuesOutsideTheRangeAreClampedToTheEdgeBins() {
+        HistogramSketch sketch = new HistogramSketch(0.0, 10.0, 1.0);
+        sketch.accept(-5.0);
+        sketch.accept(500.0);
+        sketch.accept(Double.NaN);
+
+        assertEquals(2, sketch.getCount());
+        assertTrue(sketch.quantile(0.5) <= 1.0);
+        assertTrue(sketch.quantile(1.0) >= 9.0);
+    }
+
+    @Test
+    void mergeAddsTheBins() {
+        HistogramSketch low = new HistogramSketch(0.0, 100.0, 1.0);
+        HistogramSketch high = new HistogramSketch(0.0, 100.0, 1.0);
+        for (int i = 0; i < 50; i++) {
+            low.accept(i);
+            high.accept(50 + i);
+        }
+
+        low.merge(high);
+
+        assertEquals(100, low.getCount());
+        assertEquals(50.0, low.quantile(0.5), 1.0);
+        assertThrows(IllegalArgumentException.class, () -> low.merge(new HistogramSketch(0.0, 100.0, 2.0)));
+    }
+
+    @Test
+    void invalidRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HistogramSketch(10.0, 10.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramSketch(0.0, 10.0, 0.0));
+        assertTrue(Double.isNaN(new HistogramSketch(0.0, 10.0, 1.0).quantile(0.5)));
+    }
+}
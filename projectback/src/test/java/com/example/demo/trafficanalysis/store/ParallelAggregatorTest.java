@@ -0,0 +1,91 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelAggregatorTest {
+
+    private final ParallelAggregator sequential = new ParallelAggregator(1, Integer.MAX_VALUE);
+    private final ParallelAggregator parallel = new ParallelAggregator(4, 7);
+
+    @AfterEach
+    void tearDown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void splitScanMatchesASingleScan() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(randomDetections(1000));
+        DetectionStore.Snapshot snapshot = store.snapshot();
+
+        ParallelAggregator.Result expected = sequential.aggregate(snapshot);
+        ParallelAggregator.Result actual = parallel.aggregate(snapshot);
+
+        assertEquals(1000, actual.rows());
+        assertEquals(expected.totalsByClass(), actual.totalsByClass());
+        assertEquals(expected.vehiclesByHourOfDay(), actual.vehiclesByHourOfDay());
+        assertEquals(expected.vehiclesByDayOfWeek(), actual.vehiclesByDayOfWeek());
+        assertEquals(expected.avgSpeedByLane().keySet(), actual.avgSpeedByLane().keySet());
+        expected.avgSpeedByLane().forEach((lane, speed) ->
+                assertEquals(speed, actual.avgSpeedByLane().get(lane), 1e-9));
+    }
+
+    @Test
+    void selectedRowsAreTheOnlyOnesCounted() {
+        DetectionStore store = new DetectionStore();
+        store.appendAll(List.of(
+                detection("2025-05-08 21:07:00", 2, 30.0),
+                detection("2025-05-10 08:00:00", 5, 50.0),
+                detection("2025-05-10 09:30:00", 1, 70.0)));
+
+        ParallelAggregator.Result result = parallel.aggregate(store.snapshot(), new int[]{1, 2});
+
+        assertEquals(2, result.rows());
+        assertEquals(Map.of("car", 6L), result.totalsByClass());
+        assertEquals(Map.of("lane_1", 60.0), result.avgSpeedByLane());
+        assertEquals(Map.of(8L, 5L, 9L, 1L), result.vehiclesByHourOfDay());
+        // 2025-05-10 was a Saturday
+        assertEquals(Map.of(6L, 6L), result.vehiclesByDayOfWeek());
+    }
+
+    private static List<DetectionDto> randomDetections(int count) {
+        Random random = new Random(11);
+        List<DetectionDto> detections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Integer> totals = new HashMap<>();
+            totals.put("car", random.nextInt(10));
+            if (random.nextBoolean()) {
+                totals.put("truck", random.nextInt(3));
+            }
+            Map<String, Double> speeds = new HashMap<>();
+            speeds.put("lane_" + (1 + random.nextInt(4)), 20.0 + random.nextInt(800) / 10.0);
+            detections.add(DetectionDto.builder()
+                    .timestamp_ms(1000L * i)
+                    .date(String.format("2025-05-%02d %02d:%02d:00", 1 + random.nextInt(28), random.nextInt(24), random.nextInt(60)))
+                    .objects_total(totals)
+                    .avg_speed_by_lane(speeds)
+                    .build());
+        }
+        return detections;
+    }
+
+    private static DetectionDto detection(String date, int cars, double speed) {
+        return DetectionDto.builder()
+                .timestamp_ms(1000L)
+                .date(date)
+                .objects_total(Map.of("car", cars))
+                .avg_speed_by_lane(Map.of("lane_1", speed))
+                .build();
+    }
+}
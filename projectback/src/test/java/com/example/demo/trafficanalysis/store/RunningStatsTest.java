@@ -0,0 +1,92 @@
+package com.trafficanalysis.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunningStatsTest {
+
+    @Test
+    void matchesTheTwoPassFormulas() {
+        double[] values = {12.5, 40.0, 33.3, 7.25, 51.0, 40.0};
+        RunningStats stats = new RunningStats();
+        for (double value : values) {
+            stats.accept(value);
+        }
+        stats.accept(Double.NaN);
+
+        double mean = 0.0;
+        for (double value : values) {
+            mean += value / values.length;
+        }
+        double variance = 0.0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean) / values.length;
+        }
+        assertEquals(values.length, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-9);
+        assertEquals(Math.sqrt(variance), stats.getStdDev(), 1e-9);
+        assertEquals(7.25, stats.getMin());
+        assertEquals(51.0, stats.getMax());
+    }
+
+    @Test
+    void mergedStatsMatchOneInstance() {
+        Random random = new Random(3);
+        RunningStats all = new RunningStats();
+        RunningStats left = new RunningStats();
+        RunningStats right = new RunningStats();
+        for (int i = 0; i < 1000; i++) {
+            double value = 30.0 + random.nextGaussian() * 8.0;
+            all.accept(value);
+            (i < 300 ? left : right).accept(value);
+        }
+
+        left.merge(right);
+
+        assertEquals(all.getCount(), left.getCount());
+        assertEquals(all.getMean(), left.getMean(), 1e-9);
+        assertEquals(all.getStdDev(), left.getStdDev(), 1e-9);
+        assertEquals(all.getMin(), left.getMin());
+        assertEquals(all.getMax(), left.getMax());
+    }
+
+    @Test
+    void mergeIntoEmptyTakesTheOtherStats() {
+        RunningStats empty = new RunningStats();
+        RunningStats other = new RunningStats();
+        other.accept(20.0);
+        other.accept(30.0);
+
+        empty.merge(other);
+        empty.merge(new RunningStats());
+
+        assertEquals(2, empty.getCount());
+        assertEquals(25.0, empty.getMean());
+        assertEquals(20.0, empty.getMin());
+        assertEquals(30.0, empty.getMax());
+    }
+
+    @Test
+    void emptyStatsAreNaN() {
+        RunningStats stats = new RunningStats(new HistogramSketch(0.0, 100.0, 1.0));
+
+        assertTrue(Double.isNaN(stats.getMean()));
+        assertTrue(Double.isNaN(stats.getStdDev()));
+        assertTrue(Double.isNaN(stats.quantile(0.5)));
+        assertTrue(Double.isNaN(new RunningStats().quantile(0.5)));
+    }
+
+    @Test
+    void quantilesStayWithinTheObservedRange() {
+        RunningStats stats = new RunningStats(new HistogramSketch(0.0, 100.0, 10.0));
+        stats.accept(42.0);
+        stats.accept(44.0);
+
+        assertEquals(42.0, stats.quantile(0.0));
+        assertEquals(44.0, stats.quantile(1.0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.trafficanalysis.store;
+
+import com.trafficanalysis.dto.DetectionDto;
+import com.trafficanalysis.dto.TreeNodeDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TimeBucketIndexTest {
+
+    private final TimeBucketIndex index = new TimeBucketIndex();
+
+    @Test
+    void rangeSumsMatchAScanOfTheDetections() {
+        Random random = new Random(9);
+        long first = seconds("2024-12-30 22:00:00");
+        List<DetectionDto> detections = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // About four days around a year boundary
+            long time = first + random.nextInt(4 * 86_400);
+            detections.add(DetectionDto.builder()
+                    .date(LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC).format(DetectionStore.DATE_FORMAT))
+                    .objects_total(Map.of("car", random.nextInt(5), "bus", random.nextInt(2)))
+                    .avg_speed_by_lane(Map.of("lane_1", 10.0 + random.nextInt(60)))
+                    .build());
+        }
+        index.accept(detections);
+
+        for (int query = 0; query < 200; query++) {
+            long from = first - 3_600 + random.nextInt(5 * 86_400);
+            long to = from + random.nextInt(2 * 86_400);
+            long expectedDetections = 0;
+            long expectedVehicles = 0;
+            for (DetectionDto detection : detections) {
+                long minute = Math.floorDiv(DetectionStore.parseDate(detection.getDate()), 60L);
+                if (minute >= Math.floorDiv(from, 60L) && minute <= Math.floorDiv(to, 60L)) {
+                    expectedDetections++;
+                    expectedVehicles += detection.getObjects_total().values().stream().mapToInt(Integer::intValue).sum();
+                }
+            }
+
+            TimeBucketIndex.RangeTotals totals = index.sum(from, to);
+            assertEquals(expectedDetections, totals.getDetections());
+            assertEquals(expectedVehicles, totals.getVehicles());
+        }
+    }
+
+    @Test
+    void rangeResolvesToWholeMinutes() {
+        index.accept(List.of(
+                detection("2025-05-08 21:07:10", 2, 30.0),
+                detection("2025-05-08 21:07:50", 4, 50.0),
+                detection("2025-05-08 21:08:00", 8, 70.0)));
+
+        TimeBucketIndex.RangeTotals minute = index.sum(seconds("2025-05-08 21:07:30"), seconds("2025-05-08 21:07:30"));
+        assertEquals(2, minute.getDetections());
+        assertEquals(6, minute.getVehicles());
+        assertEquals(3.0, minute.getAvgVehicles());
+        assertEquals(40.0, minute.getAvgSpeed());
+
+        TimeBucketIndex.RangeTotals empty = index.sum(seconds("2025-05-09 00:00:00"), seconds("2025-05-10 00:00:00"));
+        assertEquals(0, empty.getDetections());
+        assertNull(empty.getAvgSpeed());
+    }
+
+    @Test
+    void treeExpandsOneBucketAtATime() {
+        index.accept(List.of(
+                detection("2025-05-08 21:07:10", 2, 30.0),
+                detection("2025-05-08 22:15:00", 4, 50.0),
+                detection("2026-01-01 00:00:00", 1, 40.0)));
+
+        TreeNodeDto root = index.toTree(null, 1);
+        assertEquals("All", root.getValue());
+        assertEquals(3L, root.getCount());
+        assertEquals(List.of("2025", "2026"), root.getChildren().stream().map(TreeNodeDto::getValue).toList());
+        // Cut off by the depth, but the child count is known
+        assertNull(root.getChildren().get(0).getChildren());
+        assertEquals(1, root.getChildren().get(0).getChildCount());
+
+        TreeNodeDto day = index.toTree("2025-05-08", 2);
+        assertEquals(6L, day.getVehicles());
+        assertEquals(List.of("2025-05-08T21", "2025-05-08T22"), day.getChildren().stream().map(TreeNodeDto::getValue).toList());
+        assertEquals("2025-05-08T21:07", day.getChildren().get(0).getChildren().get(0).getValue());
+
+        assertNull(index.toTree("2025-05-09", 1));
+        assertNull(index.toTree("2025-13", 1));
+        assertNull(index.toTree("not-a-bucket", 1));
+    }
+
+    private static DetectionDto detection(String date, int cars, double speed) {
+        return DetectionDto.builder()
+                .date(date)
+                .objects_total(Map.of("car", cars))
+                .avg_speed_by_lane(Map.of("lane_1", speed))
+                .build();
+    }
+
+    private static long seconds(String date) {
+        return DetectionStore.parseDate(date);
+    }
+}